@@ -5,44 +5,86 @@ import android.content.ContentValues;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.media.ExifInterface;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
 import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.ImageView;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SwitchCompat;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
 
+import com.google.android.gms.tasks.Tasks;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.text.Text;
-import com.google.mlkit.vision.text.TextRecognition;
-import com.google.mlkit.vision.text.TextRecognizer;
-import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+import com.z_iti_271311_u2_e07.grid.CellGrid;
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+import com.z_iti_271311_u2_e07.grid.GridReconstructor;
+import com.z_iti_271311_u2_e07.grid.OcrBox;
+import com.z_iti_271311_u2_e07.image.BitmapPool;
+import com.z_iti_271311_u2_e07.image.Orientation;
+import com.z_iti_271311_u2_e07.image.PhotoDecoder;
+import com.z_iti_271311_u2_e07.karnaugh.Cover;
+import com.z_iti_271311_u2_e07.karnaugh.ExpressionRenderer;
+import com.z_iti_271311_u2_e07.karnaugh.IncrementalSolver;
+import com.z_iti_271311_u2_e07.karnaugh.KarnaughMap;
+import com.z_iti_271311_u2_e07.karnaugh.KarnaughSolver;
+import com.z_iti_271311_u2_e07.karnaugh.MultiOutputMinimizer;
+import com.z_iti_271311_u2_e07.karnaugh.SolutionCache;
+
+import com.z_iti_271311_u2_e07.ocr.OcrBoxes;
+import com.z_iti_271311_u2_e07.ocr.OcrService;
+import com.z_iti_271311_u2_e07.overlay.GroupOverlayView;
+import com.z_iti_271311_u2_e07.overlay.OverlayShapes;
+import com.z_iti_271311_u2_e07.pipeline.CaptureException;
+import com.z_iti_271311_u2_e07.pipeline.CaptureJob;
+import com.z_iti_271311_u2_e07.pipeline.CapturePipeline;
+import com.z_iti_271311_u2_e07.pipeline.Stage;
+import com.z_iti_271311_u2_e07.vision.CellClassifier;
+import com.z_iti_271311_u2_e07.vision.CellRecognizer;
+import com.z_iti_271311_u2_e07.vision.DnnCellRecognizer;
+import com.z_iti_271311_u2_e07.vision.GridLineDetector;
+import com.z_iti_271311_u2_e07.vision.ImagePreprocessor;
+import com.z_iti_271311_u2_e07.vision.MapLocalizer;
 
 import org.opencv.android.OpenCVLoader;
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.imgproc.Imgproc;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -54,8 +96,65 @@ public class MainActivity extends AppCompatActivity {
     private TextView tvResult; // TextView para mostrar los resultados
     private Button btnCapture; // Botón de captura de imagen tomada con el dispositivo
     private ImageView imgPhoto; // ImageView para mostrar la imagen capturada
+    private GroupOverlayView overlay; // Grupos dibujados sobre la foto, sin copiarla
+    private SwitchCompat swProductOfSums; // Resultado como producto de sumas en lugar de suma de productos
+    private SwitchCompat swMultiOutput; // La cuadrícula son varios mapas cuadrados, uno por salida
+    private Spinner spEngine; // Motor de reconocimiento: ML Kit o un modelo de celdas de OpenCV
     private Uri photoUri; // URI de la imagen capturada
     private String currentPhotoPath; // Ruta de la imagen capturada
+    private final GridReconstructor gridReconstructor = new GridReconstructor(); // Cajas de OCR a celdas
+    private final KarnaughSolver solver = new KarnaughSolver(); // Motor de agrupamiento
+    private final Cover cover = new Cover(); // Implicantes de la solución editada
+    private final ExpressionRenderer expressionRenderer = new ExpressionRenderer(); // Texto de la expresión al editar
+    private final ExpressionRenderer pipelineRenderer = new ExpressionRenderer(); // Texto de la expresión en el pipeline
+    private final CapturePipeline capturePipeline = new CapturePipeline(new Handler(Looper.getMainLooper())::post); // Etapas fuera del hilo principal
+    private final OcrService ocrService = new OcrService(getLifecycle()); // Reconocedor de texto de larga vida
+    private final GridLineDetector gridLineDetector = new GridLineDetector(); // Líneas del mapa con OpenCV
+    private final MapLocalizer mapLocalizer = new MapLocalizer(); // Recorte y enderezado de la tabla
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(); // Grises derechos con contraste local
+    private final Mat rgbaMat = new Mat(); // Mats reutilizados entre fotos
+    private final Mat grayMat = new Mat();
+    private final Mat rectifiedMat = new Mat();
+    private final BitmapPool bitmapPool = new BitmapPool(2); // Vista reducida y región del mapa
+    private final PhotoDecoder photoDecoder = new PhotoDecoder(bitmapPool); // Decodifica a la resolución de cada etapa
+    private static final int FULL_FRAME_SIZE = 2048; // Lado mayor de la foto completa si no se ubicó el mapa
+    private static final int MAP_DECODE_SIZE = 2 * MapLocalizer.CANONICAL_SIZE; // Lado mayor mínimo de la región del mapa
+    private static final double MAP_MARGIN = 0.02; // Margen alrededor del mapa al decodificar su región
+    private final CellClassifier cellClassifier = new CellClassifier(); // Alternativa a ML Kit para 0/1/X
+    private final DnnCellRecognizer dnnRecognizer = new DnnCellRecognizer(); // Red de celdas en un solo forward
+    private static final String CELL_MODEL_ASSET = "cell_classifier.yml"; // Modelos entrenados en assets
+    private static final String CELL_NET_ASSET = "cell_net.onnx";
+    private static final int ENGINE_ML_KIT = 0; // Nombres en @array/recognition_engines
+    private static final int ENGINE_ML = 1;
+    private static final int ENGINE_DNN = 2;
+    private final List<CellRecognizer> availableEngines = new ArrayList<>(); // Motores cargados, en spEngine después de ML Kit
+    private final SolutionCache solutionCache = new SolutionCache(); // Soluciones de mapas ya vistos
+    private static final int EXPORT_STROKE_WIDTH = 5; // Grosor de los grupos en la imagen guardada, en píxeles
+    private final Paint exportStroke = new Paint(); // Paint del hilo de guardado
+    private final Paint exportText = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static final int SAVE_JPEG_QUALITY = 90; // Calidad al guardar; 100 casi duplica el tamaño y el tiempo
+    private static final String SOLUTION_CACHE_FILE = "soluciones.bin"; // Archivo de la caché en almacenamiento interno
+    private static final int[] GROUP_COLORS = {
+            android.graphics.Color.RED,
+            android.graphics.Color.BLUE,
+            android.graphics.Color.GREEN,
+            android.graphics.Color.YELLOW,
+            android.graphics.Color.CYAN,
+            android.graphics.Color.MAGENTA
+    };
+
+    // Edición de celdas sobre el último mapa resuelto
+    private final IncrementalSolver incrementalSolver = new IncrementalSolver(); // Re-minimiza al tocar una celda
+    private Bitmap baseBitmap; // Foto mostrada; los grupos van en la capa superpuesta
+    private final OverlayShapes editShapes = new OverlayShapes(); // Grupos tras editar celdas (hilo principal)
+    private int photoRotation; // Rotación EXIF de la imagen mostrada; sus píxeles no se giran
+    private double photoSkew; // Inclinación corregida al preprocesar la imagen mostrada
+    private final Matrix photoMatrix = new Matrix(); // Del bitmap a la vista, ya girado
+    private final Matrix gridToView = new Matrix(); // De las coordenadas de la cuadrícula a la vista
+    private KarnaughMap editMap; // Mapa editable, o null si la última imagen no admite edición
+    private CellGrid editGrid;
+    private boolean editProductOfSums;
+    private long editedCells; // Mintérminos cambiados a mano, para mostrar su nuevo valor
 
     // Carga la biblioteca de OpenCV al iniciar la aplicación
     static {
@@ -66,6 +165,54 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Mapas resueltos de una captura (varios si la foto tiene varias salidas).
+     */
+    private static final class MapSolution {
+        final KarnaughMap map;
+        final CellGrid[] grids;
+        final long[] onSets;
+        final long[] dcSets;
+        final Cover[] covers;
+        final boolean productOfSums;
+
+        MapSolution(KarnaughMap map, CellGrid[] grids, long[] onSets, long[] dcSets, Cover[] covers, boolean productOfSums) {
+            this.map = map;
+            this.grids = grids;
+            this.onSets = onSets;
+            this.dcSets = dcSets;
+            this.covers = covers;
+            this.productOfSums = productOfSums;
+        }
+
+        // La edición de celdas admite una sola salida de hasta 6 variables
+        boolean isEditable() {
+            return covers.length == 1 && map.numVars() <= IncrementalSolver.MAX_VARS;
+        }
+    }
+
+    /**
+     * Resultado de una captura, listo para mostrarse en el hilo principal.
+     */
+    private static final class CaptureResult {
+        final Bitmap bitmap; // Foto sin modificar
+        final OverlayShapes shapes; // Grupos en coordenadas de la cuadrícula; no cambian después del pipeline
+        final int rotation; // Grados EXIF; los bitmaps quedan como en el archivo
+        final double skew; // Inclinación corregida al preprocesar, en grados
+        final String expression;
+        final MapSolution solution;
+
+        CaptureResult(Bitmap bitmap, OverlayShapes shapes, int rotation, double skew, String expression,
+                      MapSolution solution) {
+            this.bitmap = bitmap;
+            this.shapes = shapes;
+            this.rotation = rotation;
+            this.skew = skew;
+            this.expression = expression;
+            this.solution = solution;
+        }
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -75,9 +222,186 @@ public class MainActivity extends AppCompatActivity {
         tvResult = findViewById(R.id.tvResult);
         btnCapture = findViewById(R.id.btnCapture);
         imgPhoto = findViewById(R.id.imgPhoto);
+        overlay = findViewById(R.id.overlay);
+        swProductOfSums = findViewById(R.id.swProductOfSums);
+        swMultiOutput = findViewById(R.id.swMultiOutput);
+        spEngine = findViewById(R.id.spEngine);
+
+        // Tocar una celda del mapa alterna su valor 0 -> 1 -> X
+        imgPhoto.setOnTouchListener(this::onPhotoTouched);
+        // La foto se gira al mostrarla, así que su ajuste depende del tamaño de la vista
+        imgPhoto.addOnLayoutChangeListener((view, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) ->
+                updatePhotoMatrix());
 
         // Asignar evento clic al botón de captura
         btnCapture.setOnClickListener(view -> checkPermissionsAndOpenCamera());
+
+        exportStroke.setStyle(Paint.Style.STROKE);
+        exportStroke.setStrokeWidth(EXPORT_STROKE_WIDTH);
+        exportText.setTextAlign(Paint.Align.CENTER);
+
+        // Leer archivos no toca el hilo principal; los motores de celdas además son del hilo de imagen.
+        // Una sola tarea: las capturas esperan a que termine
+        capturePipeline.prepare(() -> {
+            loadSolutionCache();
+            loadCellModels();
+        });
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        capturePipeline.persist(this::saveSolutionCache);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Los Mats y motores pertenecen al hilo de imagen: se liberan ahí, después de cancelar la captura en curso
+        capturePipeline.shutdown(() -> {
+            gridLineDetector.release();
+            mapLocalizer.release();
+            cellClassifier.release();
+            dnnRecognizer.release();
+            rgbaMat.release();
+            grayMat.release();
+            rectifiedMat.release();
+            preprocessor.release();
+            photoDecoder.close();
+            bitmapPool.clear();
+        });
+    }
+
+    /**
+     * Carga los modelos de celdas desde assets, en el hilo de imagen; los que no vengan en el
+     * paquete dejan solo ML Kit.
+     */
+    private void loadCellModels() {
+        try {
+            if (!cellClassifier.load(copyAsset(CELL_MODEL_ASSET).getAbsolutePath())) {
+                Log.w("CellClassifier", "El modelo de celdas no está entrenado para " + CellClassifier.CELL_SIZE + "x" + CellClassifier.CELL_SIZE);
+            }
+        } catch (IOException e) {
+            Log.d("CellClassifier", "Sin modelo de celdas, se usa ML Kit", e);
+        }
+        try {
+            if (!dnnRecognizer.load(copyAsset(CELL_NET_ASSET).getAbsolutePath())) {
+                Log.w("DnnCellRecognizer", "La red de celdas no es válida");
+            }
+        } catch (IOException e) {
+            Log.d("DnnCellRecognizer", "Sin red de celdas, se usa ML Kit", e);
+        }
+        List<CellRecognizer> loaded = new ArrayList<>();
+        if (cellClassifier.isLoaded()) {
+            loaded.add(cellClassifier);
+        }
+        if (dnnRecognizer.isLoaded()) {
+            loaded.add(dnnRecognizer);
+        }
+        runOnUiThread(() -> showEngines(loaded));
+    }
+
+    /**
+     * Ofrece en spEngine solo ML Kit y los motores de celdas que sí se cargaron; sin modelos en el
+     * paquete no hay nada que elegir y el selector se oculta.
+     */
+    private void showEngines(List<CellRecognizer> loaded) {
+        String[] names = getResources().getStringArray(R.array.recognition_engines);
+        List<String> labels = new ArrayList<>();
+        labels.add(names[ENGINE_ML_KIT]);
+        for (CellRecognizer recognizer : loaded) {
+            labels.add(names[recognizer == cellClassifier ? ENGINE_ML : ENGINE_DNN]);
+        }
+        availableEngines.clear();
+        availableEngines.addAll(loaded);
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, labels);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spEngine.setAdapter(adapter);
+        spEngine.setVisibility(loaded.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    /**
+     * Copia un asset al almacenamiento interno (OpenCV lee los modelos de un archivo). Se vuelve a
+     * copiar si la app se actualizó después de la última copia, por si el asset cambió; la copia se
+     * escribe aparte y se renombra al final, para no dejar un modelo a medias si se interrumpe.
+     */
+    private File copyAsset(String name) throws IOException {
+        File file = new File(getFilesDir(), name);
+        if (file.exists() && file.lastModified() >= installTime()) {
+            return file;
+        }
+        File partial = new File(getFilesDir(), name + ".tmp");
+        try (InputStream in = getAssets().open(name);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(partial))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            partial.delete();
+            throw e;
+        }
+        if (!partial.renameTo(file)) {
+            partial.delete();
+            throw new IOException("No se pudo guardar " + file);
+        }
+        return file;
+    }
+
+    // Momento de la última instalación o actualización de la app
+    private long installTime() {
+        try {
+            return getPackageManager().getPackageInfo(getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return Long.MAX_VALUE; // No debería pasar; ante la duda se copia de nuevo
+        }
+    }
+
+    /**
+     * Motor de celdas elegido en spEngine, o {@code null} para usar ML Kit.
+     */
+    @Nullable
+    private CellRecognizer selectedRecognizer() {
+        int engine = spEngine.getSelectedItemPosition();
+        return engine > 0 ? availableEngines.get(engine - 1) : null;
+    }
+
+    /**
+     * Carga las soluciones guardadas en ejecuciones anteriores, si existen, en el hilo de imagen.
+     */
+    private void loadSolutionCache() {
+        File file = new File(getFilesDir(), SOLUTION_CACHE_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            solutionCache.readFrom(in);
+        } catch (IOException e) {
+            Log.w("SolutionCache", "No se pudo leer la caché de soluciones", e);
+        }
+    }
+
+    /**
+     * Guarda la caché de soluciones en el almacenamiento interno de la aplicación, en el hilo de
+     * guardado (la caché está sincronizada, así que el hilo de imagen puede seguir usándola). Se
+     * escribe aparte y se renombra al final, para no dejar un archivo a medias si el proceso muere.
+     */
+    private void saveSolutionCache() {
+        File file = new File(getFilesDir(), SOLUTION_CACHE_FILE);
+        File partial = new File(getFilesDir(), SOLUTION_CACHE_FILE + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(partial))) {
+                solutionCache.writeTo(out);
+            }
+            if (!partial.renameTo(file)) {
+                throw new IOException("No se pudo reemplazar " + file);
+            }
+        } catch (IOException e) {
+            partial.delete();
+            Log.w("SolutionCache", "No se pudo guardar la caché de soluciones", e);
+        }
+        Log.d("SolutionCache", "Aciertos: " + solutionCache.hits() + ", fallos: " + solutionCache.misses());
     }
 
     /**
@@ -152,410 +476,504 @@ public class MainActivity extends AppCompatActivity {
         tvResult.setText("");
 
         if (requestCode == CAMERA_REQUEST_CODE && resultCode == RESULT_OK) {
-            setPic(); // Cargar y mostrar la imagen en el ImageView
+            processCapture(currentPhotoPath); // Procesar la imagen fuera del hilo principal
         }
     }
 
-    private void setPic() {
-        int targetW = imgPhoto.getWidth();
-        int targetH = imgPhoto.getHeight();
-
-        BitmapFactory.Options bmOptions = new BitmapFactory.Options();
-        bmOptions.inJustDecodeBounds = true;
-        BitmapFactory.decodeFile(currentPhotoPath, bmOptions);
-        int photoW = bmOptions.outWidth;
-        int photoH = bmOptions.outHeight;
+    /**
+     * Procesa una captura en el pipeline; una captura nueva cancela la anterior. Los ajustes de la
+     * interfaz se leen aquí, en el hilo principal, que después solo recibe la imagen y la expresión.
+     */
+    private void processCapture(String photoPath) {
+        boolean productOfSums = swProductOfSums.isChecked();
+        boolean multiOutput = swMultiOutput.isChecked();
+        CellRecognizer recognizer = selectedRecognizer();
+        capturePipeline.submit(job -> runCapture(job, photoPath, productOfSums, multiOutput, recognizer),
+                new CapturePipeline.Callback<CaptureResult>() {
+                    @Override
+                    public void onResult(CaptureJob job, CaptureResult result) {
+                        showCapture(job, result);
+                    }
 
-        int scaleFactor = Math.min(photoW / targetW, photoH / targetH);
+                    @Override
+                    public void onError(CaptureJob job, Exception error) {
+                        Log.w("Pipeline", "Captura " + job.id() + " fallida (" + job.times() + ")", error);
+                        Toast.makeText(MainActivity.this, error instanceof CaptureException
+                                ? error.getMessage()
+                                : "Error al procesar la imagen: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
 
-        bmOptions.inJustDecodeBounds = false;
-        bmOptions.inSampleSize = scaleFactor;
-        bmOptions.inPurgeable = true;
+    /**
+     * Todas las etapas de imagen de una captura, en el hilo de imagen del pipeline.
+     */
+    private CaptureResult runCapture(CaptureJob job, String photoPath, boolean productOfSums, boolean multiOutput,
+                                     @Nullable CellRecognizer recognizer) throws Exception {
+        // Una vista reducida basta para ubicar el mapa (se busca sin rotar: un cuadrilátero es igual en cualquier orientación)
+        Bitmap overview = job.stage(Stage.DECODE, () -> {
+            photoDecoder.open(photoPath);
+            return photoDecoder.decode(MapLocalizer.WORK_SIZE);
+        });
+        Point[] corners = job.stage(Stage.PREPROCESS, () -> locateMap(overview));
+        // El OCR y el dibujo trabajan sobre el mapa recortado y enderezado, si se encontró; si no, sobre la foto completa
+        Bitmap bitmap = job.stage(Stage.DECODE, () -> corners != null
+                ? decodeMap(corners)
+                : photoDecoder.decode(FULL_FRAME_SIZE));
+        // La rotación EXIF viaja como dato: ML Kit y el dibujo la aplican, y OpenCV gira solo su Mat en grises
+        int rotation = job.stage(Stage.ORIENT, () -> readRotation(photoPath));
+        // Sin mapa rectificado, el preprocesamiento también corrige la inclinación de la hoja
+        Mat gray = job.stage(Stage.PREPROCESS, () -> preprocessImage(bitmap, rotation, corners == null));
+        double skew = preprocessor.skew();
+        CellGrid grid = recognizeGrid(job, gray, recognizer);
+        MapSolution solution = job.stage(Stage.SOLVE, () -> solve(grid, productOfSums, multiOutput));
+        return job.stage(Stage.RENDER, () -> render(bitmap, rotation, skew, solution));
+    }
 
-        Bitmap bitmap = BitmapFactory.decodeFile(currentPhotoPath, bmOptions);
-        bitmap = rotateImageIfRequired(bitmap, currentPhotoPath);
+    /**
+     * Muestra el resultado, prepara la edición de celdas y manda guardar la imagen (en el hilo principal).
+     */
+    private void showCapture(CaptureJob job, CaptureResult result) {
+        baseBitmap = result.bitmap;
+        photoRotation = result.rotation;
+        photoSkew = result.skew;
+        imgPhoto.setImageBitmap(result.bitmap);
+        overlay.setShapes(result.shapes);
+        updatePhotoMatrix();
+        tvResult.setText(result.expression);
+
+        MapSolution solution = result.solution;
+        editMap = null;
+        if (solution.isEditable()) {
+            // Las ediciones siguientes parten de esta solución
+            incrementalSolver.reset(solution.map, solution.onSets[0], solution.dcSets[0], solution.covers[0]);
+            editMap = solution.map;
+            editGrid = solution.grids[0];
+            editProductOfSums = solution.productOfSums;
+            editedCells = 0L;
+        }
 
-        // Dibuja el encerrado en la imagen procesada
-        detectAndDrawEncirclements(bitmap);
+        // Guardar no se cancela con capturas nuevas: la imagen ya se mostró
+        capturePipeline.persist(() -> {
+            try {
+                job.timed(Stage.PERSIST, () -> {
+                    // Los grupos se componen sobre una copia solo aquí, para el archivo
+                    Bitmap composed = composite(result);
+                    try {
+                        saveImageToFile(composed, result.rotation);
+                    } finally {
+                        composed.recycle();
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                Log.w("Pipeline", "No se pudo guardar la captura " + job.id(), e);
+            }
+            Log.d("Pipeline", "Captura " + job.id() + ": " + job.times());
+        });
     }
 
-    private void detectAndDrawEncirclements(Bitmap bitmap) {
-        Bitmap preprocessedBitmap = preprocessImage(bitmap);
-        Bitmap mutableBitmap = preprocessedBitmap.copy(Bitmap.Config.ARGB_8888, true);
-        Canvas canvas = new Canvas(mutableBitmap);
+    /**
+     * Reconoce las celdas de la imagen preprocesada: con el motor de celdas elegido si hay retícula;
+     * si no, con OCR y reconstruyendo la cuadrícula a partir de las cajas.
+     */
+    private CellGrid recognizeGrid(CaptureJob job, Mat gray, @Nullable CellRecognizer recognizer) throws Exception {
+        // Retícula a partir de las líneas dibujadas, para ubicar también las filas y columnas de ceros
+        GridLattice lattice = job.stage(Stage.GRID, () ->
+                gridLineDetector.detectBinary(preprocessor.output(ImagePreprocessor.Output.BINARY)));
+        if (recognizer != null && lattice != null) {
+            // Con un motor de celdas y la retícula detectada no hace falta el OCR general
+            CellGrid grid = job.stage(Stage.RECOGNIZE, () -> recognizer.classify(gray, lattice));
+            if (KarnaughMap.isPowerOfTwo(grid.rows()) && KarnaughMap.isPowerOfTwo(grid.cols())) {
+                return grid;
+            }
+        }
+        List<OcrBox> boxes = job.stage(Stage.RECOGNIZE, () -> recognizeSymbols(gray));
+        return job.stage(Stage.GRID, () -> buildGrid(boxes, lattice));
+    }
 
-        int[] colors = {
-                android.graphics.Color.RED,
-                android.graphics.Color.BLUE,
-                android.graphics.Color.GREEN,
-                android.graphics.Color.YELLOW,
-                android.graphics.Color.CYAN,
-                android.graphics.Color.MAGENTA
-        };
-        final int[] colorIndex = {0};
+    /**
+     * Cajas de '1', 'X' y '*' reconocidas por ML Kit en la imagen preprocesada (ya derecha, así que
+     * sin rotación); bloquea hasta tener el resultado.
+     */
+    private List<OcrBox> recognizeSymbols(Mat gray) throws Exception {
+        List<OcrBox> boxes = new ArrayList<>();
+        // ML Kit recibe un Bitmap: los grises se copian a uno del pool
+        Bitmap ocrBitmap = bitmapPool.obtain(gray.cols(), gray.rows());
+        try {
+            Utils.matToBitmap(gray, ocrBitmap);
+            Text text = Tasks.await(ocrService.process(InputImage.fromBitmap(ocrBitmap, 0)));
+            if (text.getTextBlocks().isEmpty()) {
+                throw new CaptureException("No se detectó texto en la imagen.");
+            }
+            OcrBoxes.collect(text, boxes);
+        } finally {
+            bitmapPool.release(ocrBitmap);
+        }
+        if (boxes.isEmpty()) {
+            throw new CaptureException("No se detectaron elementos relevantes ('1' o 'X') en la imagen.");
+        }
+        return boxes;
+    }
 
-        InputImage image = InputImage.fromBitmap(bitmap, 0);
-        TextRecognizer recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+    /**
+     * Busca la tabla del mapa en la vista reducida y devuelve sus esquinas en píxeles del archivo,
+     * o {@code null} si no se encontró. La vista reducida vuelve al pool.
+     */
+    @Nullable
+    private Point[] locateMap(Bitmap overview) {
+        Utils.bitmapToMat(overview, rgbaMat);
+        Imgproc.cvtColor(rgbaMat, grayMat, Imgproc.COLOR_RGBA2GRAY);
+        Point[] corners = mapLocalizer.locate(grayMat);
+        double scale = (double) photoDecoder.width() / overview.getWidth();
+        bitmapPool.release(overview);
+        if (corners == null) {
+            return null;
+        }
+        for (Point corner : corners) {
+            corner.x *= scale;
+            corner.y *= scale;
+        }
+        return corners;
+    }
 
-        recognizer.process(image)
-                .addOnSuccessListener(visionText -> {
-                    if (visionText.getTextBlocks().isEmpty()) {
-                        Toast.makeText(MainActivity.this, "No se detectó texto en la imagen.", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
+    /**
+     * Decodifica solo la región del mapa, con margen, y la endereza; la región vuelve al pool.
+     */
+    private Bitmap decodeMap(Point[] corners) throws IOException {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = 0;
+        double maxY = 0;
+        for (Point corner : corners) {
+            minX = Math.min(minX, corner.x);
+            minY = Math.min(minY, corner.y);
+            maxX = Math.max(maxX, corner.x);
+            maxY = Math.max(maxY, corner.y);
+        }
+        int margin = (int) (Math.max(maxX - minX, maxY - minY) * MAP_MARGIN);
+        Rect region = new Rect(
+                Math.max(0, (int) minX - margin),
+                Math.max(0, (int) minY - margin),
+                Math.min(photoDecoder.width(), (int) Math.ceil(maxX) + margin),
+                Math.min(photoDecoder.height(), (int) Math.ceil(maxY) + margin));
+        Bitmap mapBitmap = photoDecoder.decodeRegion(region, MAP_DECODE_SIZE);
+
+        // Esquinas en píxeles de la región decodificada (submuestreada)
+        double scale = (double) mapBitmap.getWidth() / region.width();
+        Point[] local = new Point[corners.length];
+        for (int i = 0; i < corners.length; i++) {
+            local[i] = new Point((corners[i].x - region.left) * scale, (corners[i].y - region.top) * scale);
+        }
+        Utils.bitmapToMat(mapBitmap, rgbaMat);
+        bitmapPool.release(mapBitmap);
+        mapLocalizer.rectify(rgbaMat, local, rectifiedMat);
+        Bitmap rectified = Bitmap.createBitmap(rectifiedMat.cols(), rectifiedMat.rows(), Bitmap.Config.ARGB_8888);
+        Utils.matToBitmap(rectifiedMat, rectified);
+        return rectified;
+    }
 
-                    List<Rect> detectedRects = new ArrayList<>();
-                    List<Rect> dontCareRects = new ArrayList<>();
-
-                    for (Text.TextBlock block : visionText.getTextBlocks()) {
-                        for (Text.Line line : block.getLines()) {
-                            for (Text.Element element : line.getElements()) {
-                                String text = element.getText();
-                                Rect boundingBox = element.getBoundingBox();
-                                if (boundingBox != null) {
-                                    if (text.equals("1")) {
-                                        detectedRects.add(boundingBox);
-                                    } else if (text.equalsIgnoreCase("X") || text.equals("*")) {
-                                        dontCareRects.add(boundingBox);
-                                    }
-                                }
-                            }
-                        }
-                    }
+    /**
+     * Grados EXIF de la foto; sin EXIF legible se toma como derecha.
+     */
+    private int readRotation(String photoPath) {
+        try {
+            return Orientation.degrees(photoPath);
+        } catch (IOException e) {
+            Log.w("Pipeline", "No se pudo leer la orientación de la imagen", e);
+            return 0;
+        }
+    }
 
-                    if (detectedRects.isEmpty() && dontCareRects.isEmpty()) {
-                        Toast.makeText(MainActivity.this, "No se detectaron elementos relevantes ('1' o 'X') en la imagen.", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
+    /**
+     * Imagen en grises para el reconocimiento: derecha, con contraste local y, si se pide, sin
+     * inclinación. Solo se giran los grises, en Mats reutilizados; el bitmap no se toca.
+     */
+    private Mat preprocessImage(Bitmap bitmap, int rotation, boolean deskew) {
+        Utils.bitmapToMat(bitmap, rgbaMat);
+        preprocessor.setDeskew(deskew);
+        return preprocessor.process(rgbaMat, rotation, ImagePreprocessor.Output.GRAY);
+    }
 
-                    groupRectanglesKarnaugh(detectedRects, dontCareRects, canvas, colors, colorIndex);
-                    imgPhoto.setImageBitmap(mutableBitmap);
-                    saveImageToFile(mutableBitmap);
-                })
-                .addOnFailureListener(e -> Toast.makeText(MainActivity.this, "Error en OCR: " + e.getMessage(), Toast.LENGTH_SHORT).show());
-    }
-
-    private void groupRectanglesKarnaugh(List<Rect> oneRects, List<Rect> dontCareRects, Canvas canvas, int[] colors, final int[] colorIndex) {
-        // Combinar los rectángulos de '1' y 'X' para formar la cuadrícula
-        List<Rect> allRects = new ArrayList<>();
-        allRects.addAll(oneRects);
-        allRects.addAll(dontCareRects);
-
-        // Primero, clusterizar rectángulos en filas y columnas
-        // Esto creará una cuadrícula donde cada celda representa una posible posición en el mapa
-
-        // Ordenar rectángulos por coordenada Y central
-        allRects.sort(Comparator.comparingInt(Rect::centerY));
-        List<List<Rect>> rows = clusterRects(allRects, true); // Cluster por filas
-
-        // Ordenar rectángulos por coordenada X central
-        allRects.sort(Comparator.comparingInt(Rect::centerX));
-        List<List<Rect>> cols = clusterRects(allRects, false); // Cluster por columnas
-
-        int numRows = rows.size();
-        int numCols = cols.size();
-        int[][] grid = new int[numRows][numCols];
-        Rect[][] gridRects = new Rect[numRows][numCols];
-
-        // Mapear cada rectángulo a su posición en la cuadrícula
-        for (int i = 0; i < numRows; i++) {
-            List<Rect> row = rows.get(i);
-            for (Rect rect : row) {
-                int colIndex = getColumnIndex(rect, cols);
-                if (colIndex != -1) {
-                    if (oneRects.contains(rect)) {
-                        grid[i][colIndex] = 1; // '1' marcado como 1
-                    } else if (dontCareRects.contains(rect)) {
-                        grid[i][colIndex] = 2; // 'X' marcado como 2
-                    }
-                    gridRects[i][colIndex] = rect;
-                }
+    private CellGrid buildGrid(List<OcrBox> boxes, @Nullable GridLattice lattice) {
+        // Con retícula, cada caja va a la celda que contiene su centro; si no, se clusterizan las cajas en filas y columnas
+        if (lattice != null) {
+            CellGrid grid = gridReconstructor.reconstruct(boxes, lattice);
+            if (KarnaughMap.isPowerOfTwo(grid.rows()) && KarnaughMap.isPowerOfTwo(grid.cols())) {
+                return grid;
             }
+            // Líneas de más (p. ej. varios mapas en la hoja)
         }
+        return gridReconstructor.reconstruct(boxes);
+    }
 
-        // Implementar el algoritmo de agrupamiento
-        boolean[][] visited = new boolean[numRows][numCols];
-        List<List<int[]>> groups = new ArrayList<>();
-
-        int maxGroupSize = 1;
-        while (maxGroupSize <= numRows * numCols) {
-            maxGroupSize *= 2;
-        }
-        maxGroupSize /= 2;
-
-        for (int groupSize = maxGroupSize; groupSize >= 1; groupSize /= 2) {
-            List<int[]> possibleDims = getPossibleDimensions(groupSize);
-            for (int[] dim : possibleDims) {
-                int rowsInGroup = dim[0];
-                int colsInGroup = dim[1];
-                for (int i = 0; i <= numRows - rowsInGroup; i++) {
-                    for (int j = 0; j <= numCols - colsInGroup; j++) {
-                        if (checkGroup(grid, visited, i, j, rowsInGroup, colsInGroup)) {
-                            // Añadir grupo
-                            List<int[]> group = new ArrayList<>();
-                            for (int r = 0; r < rowsInGroup; r++) {
-                                for (int c = 0; c < colsInGroup; c++) {
-                                    group.add(new int[]{i + r, j + c});
-                                    visited[i + r][j + c] = true;
-                                }
-                            }
-                            groups.add(group);
-                        }
-                    }
-                }
+    /**
+     * Resuelve la cuadrícula reconocida: un mapa o, con {@code multiOutput}, varios mapas cuadrados
+     * del mismo tamaño uno junto a otro (p. ej. 4x12 = 3 mapas de 4x4). La forma sola no distingue
+     * los dos casos (2x4 es un mapa de 3 variables o dos de 2), así que lo indica el usuario.
+     */
+    private MapSolution solve(CellGrid grid, boolean productOfSums, boolean multiOutput) throws CaptureException {
+        int numRows = grid.rows();
+        int numCols = grid.cols();
+
+        int outputs = 1;
+        int mapRows = numRows;
+        int mapCols = numCols;
+        if (multiOutput) {
+            int side = Math.min(numRows, numCols);
+            if (side == 0 || Math.max(numRows, numCols) % side != 0) {
+                throw new CaptureException("La cuadrícula de " + numRows + "x" + numCols + " no se divide en mapas cuadrados iguales");
             }
+            outputs = Math.max(numRows, numCols) / side;
+            mapRows = side;
+            mapCols = side;
         }
 
-        // Crear variables
-        int totalCells = numRows * numCols;
-        int nVars = (int) (Math.log(totalCells) / Math.log(2));
-        int nRowVars = (int) (Math.log(numRows) / Math.log(2));
-        int nColVars = (int) (Math.log(numCols) / Math.log(2));
-
-        String[] variableNames = {"A", "B", "C", "D"};
-        String[] varsUsed = Arrays.copyOfRange(variableNames, 0, nVars);
-
-        List<String> rowGrayCodes = generateGrayCode(nRowVars);
-        List<String> colGrayCodes = generateGrayCode(nColVars);
-
-        // Crear asignaciones de variables para cada celda
-        CellInfo[][] cellVariableAssignments = new CellInfo[numRows][numCols];
-
-        for (int i = 0; i < numRows; i++) {
-            String rowCode = rowGrayCodes.get(i);
-            for (int j = 0; j < numCols; j++) {
-                String colCode = colGrayCodes.get(j);
-                String code = rowCode + colCode;
-                StringBuilder assignment = new StringBuilder();
-                char[] bits = new char[nVars];
-                for (int k = 0; k < code.length(); k++) {
-                    char bit = code.charAt(k);
-                    bits[k] = bit;
-                    String var = varsUsed[k];
-                    if (bit == '0') {
-                        assignment.append(var).append("'");
-                    } else {
-                        assignment.append(var);
-                    }
-                }
-                cellVariableAssignments[i][j] = new CellInfo(assignment.toString(), bits);
-            }
+        // Construir las máscaras de mintérminos para el motor de agrupamiento
+        KarnaughMap map;
+        try {
+            map = new KarnaughMap(mapRows, mapCols);
+        } catch (IllegalArgumentException e) {
+            throw new CaptureException("No se reconoció un mapa válido (" + numRows + "x" + numCols + ")");
+        }
+        if (outputs > MultiOutputMinimizer.MAX_OUTPUTS) {
+            throw new CaptureException("Demasiados mapas en la imagen (" + outputs + ")");
         }
 
-        // Lista para almacenar los términos booleanos
-        List<String> terms = new ArrayList<>();
-
-        // Dibujar rectángulos alrededor de los grupos y generar términos
-        for (List<int[]> group : groups) {
-            Rect groupRect = null;
-            boolean containsOne = false;
-            List<CellInfo> groupAssignments = new ArrayList<>();
-
-            for (int[] pos : group) {
-                Rect rect = gridRects[pos[0]][pos[1]];
-                if (rect != null) {
-                    if (groupRect == null) {
-                        groupRect = new Rect(rect);
-                    } else {
-                        groupRect.union(rect);
-                    }
-                    if (grid[pos[0]][pos[1]] == 1) {
-                        containsOne = true;
-                    }
-                    groupAssignments.add(cellVariableAssignments[pos[0]][pos[1]]);
-                }
+        // En producto de sumas se agrupan los ceros
+        CellGrid[] grids = new CellGrid[outputs];
+        long[] onSets = new long[outputs];
+        long[] dcSets = new long[outputs];
+        Cover[] covers = new Cover[outputs];
+        for (int o = 0; o < outputs; o++) {
+            grids[o] = outputs == 1 ? grid : grid.region(mapRows == numRows ? 0 : o * mapRows, mapCols == numCols ? 0 : o * mapCols, mapRows, mapCols);
+            onSets[o] = grids[o].onSet(map);
+            dcSets[o] = grids[o].dcSet(map);
+            if (productOfSums) {
+                onSets[o] = KarnaughSolver.offSet(map, onSets[o], dcSets[o]);
             }
+            covers[o] = new Cover();
+        }
 
-            if (groupRect != null && containsOne) {
-                Paint paint = new Paint();
-                paint.setColor(colors[colorIndex[0] % colors.length]); // Selecciona el color para el grupo
-                paint.setStyle(Paint.Style.STROKE);
-                paint.setStrokeWidth(5);
-
-                // Dibuja el rectángulo para el grupo actual
-                canvas.drawRect(groupRect, paint);
-                colorIndex[0]++; // Cambia al siguiente color
+        if (outputs == 1) {
+            solutionCache.getOrSolve(solver, map, onSets[0], dcSets[0], covers[0]);
+        } else {
+            // Los términos comunes a varias salidas se calculan una sola vez
+            solver.solveOutputs(map, onSets, dcSets, covers);
+        }
+        return new MapSolution(map, grids, onSets, dcSets, covers, productOfSums);
+    }
 
-                // Generar el término booleano para este grupo
-                String term = getGroupTerm(groupAssignments, varsUsed);
-                if (!term.isEmpty()) {
-                    terms.add(term);
-                }
+    /**
+     * Arma los rectángulos de los grupos (sin tocar la foto) y la expresión de cada salida.
+     */
+    private CaptureResult render(Bitmap bitmap, int rotation, double skew, MapSolution solution) {
+        OverlayShapes shapes = new OverlayShapes();
+        int[] colorIndex = {0};
+        int outputs = solution.covers.length;
+
+        // Rectángulos alrededor de los grupos
+        StringBuilder booleanExpression = new StringBuilder();
+        for (int o = 0; o < outputs; o++) {
+            addCover(shapes, solution.map, solution.covers[o], solution.grids[o], GROUP_COLORS, colorIndex);
+
+            // Construir la expresión booleana de la salida
+            if (outputs > 1) {
+                booleanExpression.append(o > 0 ? "\n" : "").append('F').append(o + 1).append(" = ");
             }
+            booleanExpression.append(solution.productOfSums
+                    ? pipelineRenderer.renderProductOfSums(solution.covers[o])
+                    : pipelineRenderer.render(solution.covers[o]));
         }
+        return new CaptureResult(bitmap, shapes, rotation, skew, booleanExpression.toString(), solution);
+    }
 
-        // Construir la expresión booleana final
-        String booleanExpression = String.join(" + ", terms);
+    /**
+     * Copia la foto con los grupos dibujados encima, para guardarla (en el hilo de guardado).
+     */
+    private Bitmap composite(CaptureResult result) {
+        Bitmap composed = result.bitmap.copy(Bitmap.Config.ARGB_8888, true);
+        result.shapes.draw(gridCanvas(composed, result.rotation, result.skew), exportStroke, exportText);
+        return composed;
+    }
 
-        // Mostrar la expresión en tvResult
-        runOnUiThread(() -> tvResult.setText(booleanExpression));
+    // La cuadrícula está en coordenadas de la imagen preprocesada y el bitmap sigue como en el archivo
+    private static Canvas gridCanvas(Bitmap bitmap, int rotation, double skew) {
+        Canvas canvas = new Canvas(bitmap);
+        Matrix toFile = new Matrix();
+        Matrix toGrid = new Matrix();
+        fileToGrid(rotation, skew, bitmap.getWidth(), bitmap.getHeight(), toGrid);
+        toGrid.invert(toFile);
+        canvas.concat(toFile);
+        return canvas;
     }
 
-    private List<String> generateGrayCode(int n) {
-        List<String> codes = new ArrayList<>();
-        int numCodes = 1 << n; // 2^n codes
-        for (int i = 0; i < numCodes; i++) {
-            int gray = i ^ (i >> 1);
-            String code = Integer.toBinaryString(gray);
-            while (code.length() < n) {
-                code = "0" + code;
-            }
-            codes.add(code);
+    // Del bitmap a la cuadrícula: se gira según el EXIF y después se quita la inclinación corregida
+    private static void fileToGrid(int rotation, double skew, int width, int height, Matrix out) {
+        Orientation.fileToUpright(rotation, width, height, out);
+        if (skew != 0) {
+            // getRotationMatrix2D gira en sentido antihorario con ángulos positivos; Matrix, en sentido horario
+            out.postRotate((float) -skew, Orientation.uprightWidth(rotation, width, height) / 2f,
+                    Orientation.uprightHeight(rotation, width, height) / 2f);
         }
-        return codes;
     }
 
-    private String getGroupTerm(List<CellInfo> groupAssignments, String[] varsUsed) {
-        if (groupAssignments.isEmpty()) {
-            return "";
-        }
-        int nVars = varsUsed.length;
-        char[] firstBits = groupAssignments.get(0).bits;
-        StringBuilder term = new StringBuilder();
-        for (int k = 0; k < nVars; k++) {
-            char bit = firstBits[k];
-            boolean same = true;
-            for (int i = 1; i < groupAssignments.size(); i++) {
-                if (groupAssignments.get(i).bits[k] != bit) {
-                    same = false;
-                    break;
-                }
-            }
-            if (same) {
-                if (bit == '0') {
-                    term.append(varsUsed[k]).append("'");
-                } else if (bit == '1') {
-                    term.append(varsUsed[k]);
-                }
-            }
+    /**
+     * Ajusta la foto a la vista, centrada y sin recortar, girándola según su EXIF y su inclinación.
+     */
+    private void updatePhotoMatrix() {
+        if (baseBitmap == null || imgPhoto.getWidth() == 0) {
+            return;
         }
-        return term.toString();
+        int width = baseBitmap.getWidth();
+        int height = baseBitmap.getHeight();
+        RectF upright = new RectF(0, 0, Orientation.uprightWidth(photoRotation, width, height),
+                Orientation.uprightHeight(photoRotation, width, height));
+        RectF view = new RectF(0, 0, imgPhoto.getWidth(), imgPhoto.getHeight());
+        gridToView.setRectToRect(upright, view, Matrix.ScaleToFit.CENTER);
+        fileToGrid(photoRotation, photoSkew, width, height, photoMatrix);
+        photoMatrix.postConcat(gridToView);
+        imgPhoto.setImageMatrix(photoMatrix);
+        overlay.setGridToView(gridToView);
     }
 
-    private List<List<Rect>> clusterRects(List<Rect> rects, boolean isRow) {
-        List<List<Rect>> clusters = new ArrayList<>();
-        double threshold = 50.0; // Ajustar según sea necesario
+    private void addCover(OverlayShapes shapes, KarnaughMap map, Cover groups, CellGrid grid, int[] colors, int[] colorIndex) {
+        for (int g = 0; g < groups.size(); g++) {
+            int color = colors[colorIndex[0] % colors.length]; // Selecciona el color para el grupo
 
-        for (Rect rect : rects) {
-            boolean added = false;
-            for (List<Rect> cluster : clusters) {
-                double clusterCoord = cluster.stream()
-                        .mapToDouble(r -> isRow ? r.centerY() : r.centerX())
-                        .average().orElse(0);
-                double rectCoord = isRow ? rect.centerY() : rect.centerX();
-                if (Math.abs(rectCoord - clusterCoord) < threshold) {
-                    cluster.add(rect);
-                    added = true;
-                    break;
-                }
-            }
-            if (!added) {
-                List<Rect> newCluster = new ArrayList<>();
-                newCluster.add(rect);
-                clusters.add(newCluster);
-            }
+            // Agrega el grupo actual (en varias piezas si da la vuelta por los bordes)
+            addGroup(shapes, color, map, groups.get(g), grid);
+            colorIndex[0]++; // Cambia al siguiente color
         }
-        return clusters;
     }
 
-    private int getColumnIndex(Rect rect, List<List<Rect>> cols) {
-        for (int i = 0; i < cols.size(); i++) {
-            if (cols.get(i).contains(rect)) {
-                return i;
-            }
+    private boolean onPhotoTouched(View view, MotionEvent event) {
+        if (event.getAction() != MotionEvent.ACTION_UP || editMap == null) {
+            return editMap != null;
         }
-        return -1;
-    }
-
-    private List<int[]> getPossibleDimensions(int groupSize) {
-        List<int[]> dimensions = new ArrayList<>();
-        List<Integer> powersOfTwo = new ArrayList<>();
-        int power = 1;
-        while (power <= groupSize) {
-            powersOfTwo.add(power);
-            power *= 2;
+        // Coordenadas de la vista a coordenadas de la cuadrícula (foto derecha y sin inclinación)
+        float[] point = {event.getX(), event.getY()};
+        Matrix inverse = new Matrix();
+        if (!gridToView.invert(inverse)) {
+            return false;
         }
-        for (int rows : powersOfTwo) {
-            if (groupSize % rows == 0) {
-                int cols = groupSize / rows;
-                if (powersOfTwo.contains(cols)) {
-                    dimensions.add(new int[]{rows, cols});
-                }
-            }
+        inverse.mapPoints(point);
+        int row = editGrid.rowAt(Math.round(point[1]));
+        int col = editGrid.columnAt(Math.round(point[0]));
+        if (row >= 0 && col >= 0) {
+            toggleCell(row, col);
         }
-        return dimensions;
+        view.performClick();
+        return true;
     }
 
-    private boolean checkGroup(int[][] grid, boolean[][] visited, int startRow, int startCol, int numRows, int numCols) {
-        boolean containsOne = false;
+    /**
+     * Alterna el valor de una celda y re-minimiza solo lo que la celda afecta, sin volver a reconocer la imagen.
+     */
+    private void toggleCell(int row, int col) {
+        int value = (editGrid.value(row, col) + 1) % 3; // 0 -> 1 -> X -> 0
+        editGrid.set(row, col, value, editGrid.box(row, col));
+        int minterm = editMap.minterm(row, col);
+        editedCells |= 1L << minterm;
+
+        // En producto de sumas el agrupador trabaja sobre los ceros
+        int solverValue = value;
+        if (editProductOfSums && value != CellGrid.DONT_CARE) {
+            solverValue = value == CellGrid.ONE ? IncrementalSolver.OFF : IncrementalSolver.ON;
+        }
+        incrementalSolver.setCell(minterm, solverValue);
+        incrementalSolver.copyTo(cover);
+
+        // Rehacer solo las figuras de la capa; la foto no se copia ni se vuelve a dibujar
+        editShapes.clear();
+        addCover(editShapes, editMap, cover, editGrid, GROUP_COLORS, new int[]{0});
+        addEditedCells(editShapes);
+        overlay.setShapes(editShapes);
+        tvResult.setText(editProductOfSums
+                ? expressionRenderer.renderProductOfSums(cover).toString()
+                : expressionRenderer.render(cover).toString());
+    }
 
-        for (int i = startRow; i < startRow + numRows; i++) {
-            for (int j = startCol; j < startCol + numCols; j++) {
-                if (visited[i][j]) {
-                    return false;
-                }
-                int cellValue = grid[i][j];
-                if (cellValue == 0) { // No hay '1' ni 'X'
-                    return false;
+    /**
+     * Agrega el valor actual de las celdas editadas a mano.
+     */
+    private void addEditedCells(OverlayShapes shapes) {
+        for (int r = 0; r < editMap.rows(); r++) {
+            for (int c = 0; c < editMap.cols(); c++) {
+                if ((editedCells & (1L << editMap.minterm(r, c))) == 0L) {
+                    continue;
                 }
-                if (cellValue == 1) { // Contiene al menos un '1'
-                    containsOne = true;
+                int top = editGrid.rowTop(r);
+                int bottom = editGrid.rowBottom(r);
+                int left = editGrid.columnLeft(c);
+                int right = editGrid.columnRight(c);
+                if (top > bottom || left > right) {
+                    continue;
                 }
+                String symbol = editGrid.value(r, c) == CellGrid.ONE ? "1" : editGrid.value(r, c) == CellGrid.DONT_CARE ? "X" : "0";
+                shapes.addLabel(symbol, (left + right) / 2f, bottom, bottom - top, android.graphics.Color.MAGENTA);
             }
         }
-        return containsOne;
     }
 
-    private Bitmap rotateImageIfRequired(Bitmap img, String photoPath) {
-        try {
-            ExifInterface exif = new ExifInterface(photoPath);
-            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
-            switch (orientation) {
-                case ExifInterface.ORIENTATION_ROTATE_90:
-                    return rotateImage(img, 90);
-                case ExifInterface.ORIENTATION_ROTATE_180:
-                    return rotateImage(img, 180);
-                case ExifInterface.ORIENTATION_ROTATE_270:
-                    return rotateImage(img, 270);
-                default:
-                    return img;
+    /**
+     * Agrega un implicante como un rectángulo que abarca las filas y columnas que cubre. Los grupos que dan la vuelta
+     * por los bordes del mapa, o que cruzan entre submapas en los mapas de 5 y 6 variables, se agregan
+     * como un rectángulo por cada bloque contiguo de filas y columnas dentro de un mismo submapa.
+     * Los bordes de cada fila y columna salen de sus cajas de OCR, así que también se pueden encerrar celdas vacías.
+     */
+    private void addGroup(OverlayShapes shapes, int color, KarnaughMap map, long cube, CellGrid grid) {
+        int rowMask = map.rowsOf(cube);
+        int colMask = map.colsOf(cube);
+        int subRows = map.subMapRows();
+        int subCols = map.subMapCols();
+        for (int r0 = 0; r0 < map.rows(); r0++) {
+            if ((rowMask & (1 << r0)) == 0 || (r0 % subRows != 0 && (rowMask & (1 << (r0 - 1))) != 0)) {
+                continue; // No es el inicio de un bloque de filas
+            }
+            int r1 = r0;
+            while ((r1 + 1) % subRows != 0 && (rowMask & (1 << (r1 + 1))) != 0) {
+                r1++;
+            }
+            int top = Integer.MAX_VALUE;
+            int bottom = Integer.MIN_VALUE;
+            for (int i = r0; i <= r1; i++) {
+                top = Math.min(top, grid.rowTop(i));
+                bottom = Math.max(bottom, grid.rowBottom(i));
+            }
+            for (int c0 = 0; c0 < map.cols(); c0++) {
+                if ((colMask & (1 << c0)) == 0 || (c0 % subCols != 0 && (colMask & (1 << (c0 - 1))) != 0)) {
+                    continue; // No es el inicio de un bloque de columnas
+                }
+                int c1 = c0;
+                while ((c1 + 1) % subCols != 0 && (colMask & (1 << (c1 + 1))) != 0) {
+                    c1++;
+                }
+                int left = Integer.MAX_VALUE;
+                int right = Integer.MIN_VALUE;
+                for (int j = c0; j <= c1; j++) {
+                    left = Math.min(left, grid.columnLeft(j));
+                    right = Math.max(right, grid.columnRight(j));
+                }
+                if (left <= right && top <= bottom) {
+                    shapes.addRect(left, top, right, bottom, color);
+                }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            Toast.makeText(this, "Error rotando la imagen", Toast.LENGTH_SHORT).show();
-            return img;
-        }
-    }
-
-    private Bitmap rotateImage(Bitmap img, int degree) {
-        Matrix matrix = new Matrix();
-        matrix.postRotate(degree);
-        return Bitmap.createBitmap(img, 0, 0, img.getWidth(), img.getHeight(), matrix, true);
-    }
-
-    // Clase para almacenar la información de cada celda
-    class CellInfo {
-        String assignment;
-        char[] bits;
-
-        CellInfo(String assignment, char[] bits) {
-            this.assignment = assignment;
-            this.bits = bits;
         }
     }
 
-    // Guardar imagen procesada en almacenamiento
-    private void saveImageToFile(Bitmap bitmap) {
+    // Guardar imagen procesada en almacenamiento (en el hilo de guardado del pipeline)
+    private void saveImageToFile(Bitmap bitmap, int rotation) {
         // Verificar la versión de Android
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
-            saveImageToMediaStore(bitmap);
+            saveImageToMediaStore(bitmap, rotation);
         } else {
-            saveImageToExternalStorage(bitmap);
+            saveImageToExternalStorage(bitmap, rotation);
         }
     }
 
     // Guardar la imagen en MediaStore para Android 10 o superior
-    private void saveImageToMediaStore(Bitmap bitmap) {
+    private void saveImageToMediaStore(Bitmap bitmap, int rotation) {
         ContentValues values = new ContentValues();
         values.put(MediaStore.Images.Media.DISPLAY_NAME, "IMG_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".jpg");
         values.put(MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
@@ -564,20 +982,27 @@ public class MainActivity extends AppCompatActivity {
         Uri uri = getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
 
         if (uri != null) {
-            try (OutputStream out = getContentResolver().openOutputStream(uri)) {
-                bitmap.compress(Bitmap.CompressFormat.JPEG, 100, out);
-                Toast.makeText(this, "Imagen guardada en la galería", Toast.LENGTH_SHORT).show();
+            try {
+                try (OutputStream out = getContentResolver().openOutputStream(uri)) {
+                    bitmap.compress(Bitmap.CompressFormat.JPEG, SAVE_JPEG_QUALITY, out);
+                }
+                if (rotation != 0) {
+                    try (ParcelFileDescriptor fd = getContentResolver().openFileDescriptor(uri, "rw")) {
+                        writeOrientation(new ExifInterface(fd.getFileDescriptor()), rotation);
+                    }
+                }
+                showToast("Imagen guardada en la galería");
             } catch (IOException e) {
                 e.printStackTrace();
-                Toast.makeText(this, "Error al guardar la imagen en MediaStore", Toast.LENGTH_SHORT).show();
+                showToast("Error al guardar la imagen en MediaStore");
             }
         } else {
-            Toast.makeText(this, "Error al crear URI para guardar la imagen", Toast.LENGTH_SHORT).show();
+            showToast("Error al crear URI para guardar la imagen");
         }
     }
 
     // Guardar la imagen en almacenamiento externo para versiones anteriores a Android 10
-    private void saveImageToExternalStorage(Bitmap bitmap) {
+    private void saveImageToExternalStorage(Bitmap bitmap, int rotation) {
         File storageDir = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_PICTURES), "MiAplicacion");
         if (!storageDir.exists()) {
             storageDir.mkdirs();
@@ -586,30 +1011,34 @@ public class MainActivity extends AppCompatActivity {
         String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
         File file = new File(storageDir, "IMG_" + timeStamp + ".jpg");
 
-        try (FileOutputStream out = new FileOutputStream(file)) {
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 100, out);
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, SAVE_JPEG_QUALITY, out);
+            }
+            if (rotation != 0) {
+                writeOrientation(new ExifInterface(file.getAbsolutePath()), rotation);
+            }
 
             Intent mediaScanIntent = new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE);
             Uri contentUri = Uri.fromFile(file);
             mediaScanIntent.setData(contentUri);
             sendBroadcast(mediaScanIntent);
 
-            Toast.makeText(this, "Imagen guardada en: " + file.getAbsolutePath(), Toast.LENGTH_SHORT).show();
+            showToast("Imagen guardada en: " + file.getAbsolutePath());
         } catch (IOException e) {
             e.printStackTrace();
-            Toast.makeText(this, "Error al guardar la imagen", Toast.LENGTH_SHORT).show();
+            showToast("Error al guardar la imagen");
         }
     }
 
-    private Bitmap preprocessImage(Bitmap bitmap) {
-        Bitmap grayBitmap = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(grayBitmap);
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-        paint.setDither(true);
-        paint.setFilterBitmap(true);
-        canvas.drawBitmap(bitmap, 0, 0, paint);
-        return grayBitmap;
+    // La imagen guardada no está girada: su orientación va en el EXIF, igual que en la foto original
+    private static void writeOrientation(ExifInterface exif, int rotation) throws IOException {
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(Orientation.exifOrientation(rotation)));
+        exif.saveAttributes();
     }
 
-}
\ No newline at end of file
+    // Los guardados corren fuera del hilo principal
+    private void showToast(String message) {
+        runOnUiThread(() -> Toast.makeText(this, message, Toast.LENGTH_SHORT).show());
+    }
+}
@@ -0,0 +1,237 @@
+package com.z_iti_271311_u2_e07.grid;
+
+import com.z_iti_271311_u2_e07.karnaugh.KarnaughMap;
+
+/**
+ * Cuadrícula reconstruida a partir de las cajas de OCR: valor y caja de cada celda.
+ */
+public final class CellGrid {
+
+    /** Celda sin símbolo reconocido (se toma como 0). */
+    public static final int EMPTY = 0;
+    /** Celda con '1'. */
+    public static final int ONE = 1;
+    /** Celda con 'X' o '*' (indiferente). */
+    public static final int DONT_CARE = 2;
+
+    private final int rows;
+    private final int cols;
+    private final int[] values;
+    private final OcrBox[] boxes;
+    private GridLattice lattice;
+
+    public CellGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.values = new int[rows * cols];
+        this.boxes = new OcrBox[rows * cols];
+    }
+
+    static char symbolChar(int symbol) {
+        return symbol == ONE ? '1' : symbol == DONT_CARE ? 'X' : '0';
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int value(int row, int col) {
+        return values[row * cols + col];
+    }
+
+    /**
+     * Caja de OCR de la celda, o {@code null} si la celda está vacía.
+     */
+    public OcrBox box(int row, int col) {
+        return boxes[row * cols + col];
+    }
+
+    public void set(int row, int col, int value, OcrBox box) {
+        values[row * cols + col] = value;
+        boxes[row * cols + col] = box;
+    }
+
+    /**
+     * Fija la retícula detectada; a partir de ahí los bordes de filas y columnas salen de sus líneas.
+     */
+    public void setLattice(GridLattice lattice) {
+        if (lattice.rows() != rows || lattice.cols() != cols) {
+            throw new IllegalArgumentException("La retícula no coincide con la cuadrícula");
+        }
+        this.lattice = lattice;
+    }
+
+    /**
+     * Subcuadrícula a partir de (fila, columna), p. ej. uno de varios mapas fotografiados juntos.
+     */
+    public CellGrid region(int row, int col, int rows, int cols) {
+        if (row < 0 || col < 0 || row + rows > this.rows || col + cols > this.cols) {
+            throw new IllegalArgumentException("Región fuera de la cuadrícula: " + rows + "x" + cols + " en (" + row + ", " + col + ")");
+        }
+        CellGrid region = new CellGrid(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(values, (row + i) * this.cols + col, region.values, i * cols, cols);
+            System.arraycopy(boxes, (row + i) * this.cols + col, region.boxes, i * cols, cols);
+        }
+        if (lattice != null) {
+            GridLattice skipped = lattice.skip(row, col);
+            int[] rowEdges = new int[rows + 1];
+            int[] colEdges = new int[cols + 1];
+            for (int i = 0; i <= rows; i++) {
+                rowEdges[i] = skipped.rowEdge(i);
+            }
+            for (int j = 0; j <= cols; j++) {
+                colEdges[j] = skipped.colEdge(j);
+            }
+            region.lattice = new GridLattice(rowEdges, colEdges);
+        }
+        return region;
+    }
+
+    /**
+     * Borde superior de la fila según la retícula o sus cajas, o {@link Integer#MAX_VALUE} si no tiene ninguna.
+     */
+    public int rowTop(int row) {
+        if (lattice != null) {
+            return lattice.rowEdge(row);
+        }
+        int top = Integer.MAX_VALUE;
+        for (int j = 0; j < cols; j++) {
+            OcrBox box = boxes[row * cols + j];
+            if (box != null) {
+                top = Math.min(top, box.top);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Borde inferior de la fila según la retícula o sus cajas, o {@link Integer#MIN_VALUE} si no tiene ninguna.
+     */
+    public int rowBottom(int row) {
+        if (lattice != null) {
+            return lattice.rowEdge(row + 1);
+        }
+        int bottom = Integer.MIN_VALUE;
+        for (int j = 0; j < cols; j++) {
+            OcrBox box = boxes[row * cols + j];
+            if (box != null) {
+                bottom = Math.max(bottom, box.bottom);
+            }
+        }
+        return bottom;
+    }
+
+    /**
+     * Borde izquierdo de la columna según la retícula o sus cajas, o {@link Integer#MAX_VALUE} si no tiene ninguna.
+     */
+    public int columnLeft(int col) {
+        if (lattice != null) {
+            return lattice.colEdge(col);
+        }
+        int left = Integer.MAX_VALUE;
+        for (int i = 0; i < rows; i++) {
+            OcrBox box = boxes[i * cols + col];
+            if (box != null) {
+                left = Math.min(left, box.left);
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Borde derecho de la columna según la retícula o sus cajas, o {@link Integer#MIN_VALUE} si no tiene ninguna.
+     */
+    public int columnRight(int col) {
+        if (lattice != null) {
+            return lattice.colEdge(col + 1);
+        }
+        int right = Integer.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            OcrBox box = boxes[i * cols + col];
+            if (box != null) {
+                right = Math.max(right, box.right);
+            }
+        }
+        return right;
+    }
+
+    /**
+     * Fila cuyo centro está más cerca de {@code y}, o -1 si {@code y} queda lejos de todas.
+     */
+    public int rowAt(int y) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < rows; i++) {
+            int top = rowTop(i);
+            int bottom = rowBottom(i);
+            int distance = Math.abs(y - (top + bottom) / 2);
+            // Se acepta hasta una altura de glifo del centro
+            if (top <= bottom && distance <= bottom - top && distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Columna cuyo centro está más cerca de {@code x}, o -1 si {@code x} queda lejos de todas.
+     */
+    public int columnAt(int x) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int j = 0; j < cols; j++) {
+            int left = columnLeft(j);
+            int right = columnRight(j);
+            int distance = Math.abs(x - (left + right) / 2);
+            if (left <= right && distance <= Math.max(right - left, rowHeightHint()) && distance < bestDistance) {
+                best = j;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // Los glifos son más altos que anchos: para las columnas se tolera al menos la altura de una fila
+    private int rowHeightHint() {
+        for (int i = 0; i < rows; i++) {
+            int top = rowTop(i);
+            int bottom = rowBottom(i);
+            if (top <= bottom) {
+                return bottom - top;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Mintérminos con '1' según la geometría del mapa.
+     */
+    public long onSet(KarnaughMap map) {
+        return mask(map, ONE);
+    }
+
+    /**
+     * Mintérminos indiferentes según la geometría del mapa.
+     */
+    public long dcSet(KarnaughMap map) {
+        return mask(map, DONT_CARE);
+    }
+
+    private long mask(KarnaughMap map, int value) {
+        long bits = 0L;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (values[i * cols + j] == value) {
+                    bits |= 1L << map.minterm(i, j);
+                }
+            }
+        }
+        return bits;
+    }
+}
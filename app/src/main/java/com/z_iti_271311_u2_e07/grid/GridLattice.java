@@ -0,0 +1,91 @@
+package com.z_iti_271311_u2_e07.grid;
+
+import com.z_iti_271311_u2_e07.karnaugh.KarnaughMap;
+
+import java.util.Arrays;
+
+/**
+ * Retícula de celdas detectada a partir de las líneas dibujadas del mapa: bordes horizontales
+ * y verticales en píxeles de la imagen, en orden creciente. {@code n} celdas tienen {@code n + 1}
+ * bordes, así que las filas o columnas con puros ceros también existen aunque el OCR no vea nada.
+ */
+public final class GridLattice {
+
+    private final int[] rowEdges;
+    private final int[] colEdges;
+
+    public GridLattice(int[] rowEdges, int[] colEdges) {
+        if (rowEdges.length < 2 || colEdges.length < 2) {
+            throw new IllegalArgumentException("Se necesitan al menos dos bordes por eje");
+        }
+        this.rowEdges = rowEdges.clone();
+        this.colEdges = colEdges.clone();
+        Arrays.sort(this.rowEdges);
+        Arrays.sort(this.colEdges);
+    }
+
+    public int rows() {
+        return rowEdges.length - 1;
+    }
+
+    public int cols() {
+        return colEdges.length - 1;
+    }
+
+    /**
+     * Borde superior de la fila {@code row}; {@code rowEdge(rows())} es el borde inferior del mapa.
+     */
+    public int rowEdge(int row) {
+        return rowEdges[row];
+    }
+
+    /**
+     * Borde izquierdo de la columna {@code col}; {@code colEdge(cols())} es el borde derecho del mapa.
+     */
+    public int colEdge(int col) {
+        return colEdges[col];
+    }
+
+    /**
+     * Fila que contiene {@code y}, o -1 si queda fuera de la retícula.
+     */
+    public int rowAt(int y) {
+        return cellAt(rowEdges, y);
+    }
+
+    /**
+     * Columna que contiene {@code x}, o -1 si queda fuera de la retícula.
+     */
+    public int colAt(int x) {
+        return cellAt(colEdges, x);
+    }
+
+    /**
+     * Retícula sin las primeras filas y columnas (p. ej. los encabezados 00, 01, 11, 10).
+     */
+    public GridLattice skip(int rows, int cols) {
+        return new GridLattice(Arrays.copyOfRange(rowEdges, rows, rowEdges.length),
+                Arrays.copyOfRange(colEdges, cols, colEdges.length));
+    }
+
+    /**
+     * Retícula sin la fila y columna de encabezados: si un eje tiene una celda más que una
+     * potencia de dos, la primera se toma como encabezado.
+     */
+    public GridLattice withoutHeaders() {
+        return skip(headerCount(rows()), headerCount(cols()));
+    }
+
+    private static int headerCount(int cells) {
+        return !KarnaughMap.isPowerOfTwo(cells) && cells > 1 && KarnaughMap.isPowerOfTwo(cells - 1) ? 1 : 0;
+    }
+
+    private static int cellAt(int[] edges, int coord) {
+        if (coord < edges[0] || coord >= edges[edges.length - 1]) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(edges, coord);
+        // Sobre un borde cuenta la celda que empieza ahí
+        return i >= 0 ? i : -i - 2;
+    }
+}
@@ -0,0 +1,139 @@
+package com.z_iti_271311_u2_e07.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reconstruye la cuadrícula del mapa agrupando las cajas de OCR en filas y columnas.
+ */
+public final class GridReconstructor {
+
+    /**
+     * Distancia máxima al centro de un grupo, en alturas de glifo. Entre filas o columnas vecinas
+     * suele haber más de dos alturas y dentro de una misma fila la foto inclinada desplaza
+     * los centros menos de media.
+     */
+    static final double CLUSTER_THRESHOLD = 1.0;
+
+    /**
+     * Agrupa las cajas de '1' y 'X' en filas y columnas y asigna cada una a su celda.
+     */
+    public CellGrid reconstruct(List<OcrBox> oneBoxes, List<OcrBox> dontCareBoxes) {
+        // Combinar las cajas de '1' y 'X'; cada caja ya trae su símbolo
+        List<OcrBox> allBoxes = new ArrayList<>(oneBoxes.size() + dontCareBoxes.size());
+        allBoxes.addAll(oneBoxes);
+        allBoxes.addAll(dontCareBoxes);
+        return reconstruct(allBoxes);
+    }
+
+    /**
+     * Igual que {@link #reconstruct(List, List)} con todas las cajas en una lista, que se reordena.
+     */
+    public CellGrid reconstruct(List<OcrBox> boxes) {
+        if (boxes.isEmpty()) {
+            return new CellGrid(0, 0);
+        }
+
+        // Ordenar por coordenada Y central y clusterizar por filas
+        boxes.sort(Comparator.comparingInt(OcrBox::centerY));
+        double[] rowBounds = boundaries(clusterCenters(boxes, true));
+
+        // Ordenar por coordenada X central y clusterizar por columnas
+        boxes.sort(Comparator.comparingInt(OcrBox::centerX));
+        double[] colBounds = boundaries(clusterCenters(boxes, false));
+
+        CellGrid grid = new CellGrid(rowBounds.length + 1, colBounds.length + 1);
+
+        // Una sola pasada: fila y columna por búsqueda binaria entre los límites
+        for (OcrBox box : boxes) {
+            grid.set(indexOf(rowBounds, box.centerY()), indexOf(colBounds, box.centerX()), box.symbol, box);
+        }
+        return grid;
+    }
+
+    /**
+     * Asigna cada caja a la celda de la retícula detectada que contiene su centro. Si la retícula
+     * tiene una fila o columna más que una potencia de dos, la primera se toma como encabezado.
+     * Las cajas fuera de las celdas de datos (encabezados, nombres de variables) se ignoran.
+     */
+    public CellGrid reconstruct(List<OcrBox> boxes, GridLattice lattice) {
+        lattice = lattice.withoutHeaders();
+        CellGrid grid = new CellGrid(lattice.rows(), lattice.cols());
+        grid.setLattice(lattice);
+        for (OcrBox box : boxes) {
+            int row = lattice.rowAt(box.centerY());
+            int col = lattice.colAt(box.centerX());
+            if (row >= 0 && col >= 0) {
+                grid.set(row, col, box.symbol, box);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Agrupa cajas ya ordenadas por su centro (Y para filas, X para columnas) en un solo barrido
+     * y devuelve la media de cada grupo, en orden creciente.
+     * Una caja empieza un grupo nuevo cuando se aleja de la media del grupo actual más que el
+     * umbral, proporcional a la mediana de la altura de los glifos, así que no depende de la
+     * resolución de la foto. Con el orden previo el total es O(n log n).
+     */
+    double[] clusterCenters(List<OcrBox> boxes, boolean isRow) {
+        if (boxes.isEmpty()) {
+            return new double[0];
+        }
+        double threshold = Math.max(1.0, CLUSTER_THRESHOLD * medianHeight(boxes));
+
+        double[] centers = new double[8];
+        int count = 0;
+        int size = 0;
+        double mean = 0;
+        for (OcrBox box : boxes) {
+            int coord = isRow ? box.centerY() : box.centerX();
+            if (size == 0 || Math.abs(coord - mean) > threshold) {
+                if (size > 0) {
+                    centers = append(centers, count++, mean);
+                }
+                mean = coord;
+                size = 1;
+            } else {
+                size++;
+                mean += (coord - mean) / size;
+            }
+        }
+        centers = append(centers, count++, mean);
+        return Arrays.copyOf(centers, count);
+    }
+
+    // Punto medio entre centros vecinos: n centros dan n - 1 límites
+    private static double[] boundaries(double[] centers) {
+        double[] bounds = new double[Math.max(0, centers.length - 1)];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = (centers[i] + centers[i + 1]) / 2;
+        }
+        return bounds;
+    }
+
+    private static int indexOf(double[] bounds, int coord) {
+        int i = Arrays.binarySearch(bounds, coord);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static double[] append(double[] array, int index, double value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, index * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private static int medianHeight(List<OcrBox> boxes) {
+        int[] heights = new int[boxes.size()];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = boxes.get(i).height();
+        }
+        Arrays.sort(heights);
+        return heights[heights.length / 2];
+    }
+}
@@ -0,0 +1,66 @@
+package com.z_iti_271311_u2_e07.grid;
+
+/**
+ * Caja delimitadora de un símbolo reconocido por OCR ('1' o 'X'), independiente de Android
+ * para poder probar y medir la reconstrucción de la cuadrícula en la JVM.
+ * La igualdad es por coordenadas y símbolo, como {@code android.graphics.Rect}.
+ */
+public final class OcrBox {
+
+    public final int left;
+    public final int top;
+    public final int right;
+    public final int bottom;
+    public final int symbol;
+
+    public OcrBox(int left, int top, int right, int bottom, int symbol) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        this.symbol = symbol;
+    }
+
+    public int centerX() {
+        return (left + right) >> 1;
+    }
+
+    public int centerY() {
+        return (top + bottom) >> 1;
+    }
+
+    public int width() {
+        return right - left;
+    }
+
+    public int height() {
+        return bottom - top;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OcrBox)) {
+            return false;
+        }
+        OcrBox other = (OcrBox) o;
+        return left == other.left && top == other.top && right == other.right
+                && bottom == other.bottom && symbol == other.symbol;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = left;
+        h = 31 * h + top;
+        h = 31 * h + right;
+        h = 31 * h + bottom;
+        return 31 * h + symbol;
+    }
+
+    @Override
+    public String toString() {
+        return "OcrBox(" + left + ", " + top + " - " + right + ", " + bottom + " '" + CellGrid.symbolChar(symbol) + "')";
+    }
+}
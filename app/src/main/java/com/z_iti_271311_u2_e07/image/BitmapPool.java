@@ -0,0 +1,79 @@
+package com.z_iti_271311_u2_e07.image;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Bitmaps mutables ya reservados para decodificar encima con {@code inBitmap} (o para copiar un
+ * Mat), en lugar de reservar varios MB por foto. Solo guarda imágenes temporales (vista reducida,
+ * región del mapa, entrada del OCR); las que se muestran en pantalla no vuelven aquí. No es
+ * seguro entre hilos: lo usa el hilo de imagen del pipeline.
+ */
+public final class BitmapPool {
+
+    private final int capacity;
+    private final ArrayDeque<Bitmap> free = new ArrayDeque<>();
+
+    public BitmapPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacidad no válida: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Saca del pool un bitmap con memoria suficiente para {@code width}x{@code height} en
+     * ARGB_8888, o devuelve {@code null} si no hay ninguno.
+     */
+    public Bitmap reusableFor(int width, int height) {
+        long needed = 4L * width * height;
+        Iterator<Bitmap> it = free.iterator();
+        while (it.hasNext()) {
+            Bitmap bitmap = it.next();
+            if (bitmap.getAllocationByteCount() >= needed) {
+                it.remove();
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Bitmap mutable ARGB_8888 de {@code width}x{@code height}: uno del pool reconfigurado, si
+     * alguno alcanza, o uno nuevo.
+     */
+    public Bitmap obtain(int width, int height) {
+        Bitmap bitmap = reusableFor(width, height);
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+        return bitmap;
+    }
+
+    /**
+     * Devuelve un bitmap que ya no se usa; si el pool está lleno se libera el más antiguo.
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+                || bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            return;
+        }
+        if (free.size() == capacity) {
+            free.removeFirst().recycle();
+        }
+        free.addLast(bitmap);
+    }
+
+    /**
+     * Libera todos los bitmaps guardados.
+     */
+    public void clear() {
+        for (Bitmap bitmap : free) {
+            bitmap.recycle();
+        }
+        free.clear();
+    }
+}
@@ -0,0 +1,88 @@
+package com.z_iti_271311_u2_e07.image;
+
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+
+import java.io.IOException;
+
+/**
+ * Orientación EXIF de una foto, tratada como metadato en lugar de girar los píxeles.
+ * <p>
+ * El bitmap se queda como viene en el archivo y cada etapa aplica la rotación solo si la necesita:
+ * el dibujo la aplica con una {@link Matrix}, OpenCV gira con {@code Core.rotate} solo el Mat en
+ * grises que analiza (y del que lee ML Kit). Las coordenadas "derechas" son las de la foto ya
+ * girada, como la ve el usuario; en ellas están la retícula y las cajas de OCR. Los grados son siempre 0, 90, 180 o 270, en sentido horario.
+ */
+public final class Orientation {
+
+    private Orientation() {
+    }
+
+    /**
+     * Grados que hay que girar la foto para verla derecha, según su EXIF. Las orientaciones con
+     * espejo se tratan como 0.
+     */
+    public static int degrees(String path) throws IOException {
+        ExifInterface exif = new ExifInterface(path);
+        switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Valor de la etiqueta EXIF de orientación para una rotación.
+     */
+    public static int exifOrientation(int degrees) {
+        switch (check(degrees)) {
+            case 90:
+                return ExifInterface.ORIENTATION_ROTATE_90;
+            case 180:
+                return ExifInterface.ORIENTATION_ROTATE_180;
+            case 270:
+                return ExifInterface.ORIENTATION_ROTATE_270;
+            default:
+                return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    /** Ancho de la foto derecha. */
+    public static int uprightWidth(int degrees, int width, int height) {
+        return check(degrees) % 180 == 0 ? width : height;
+    }
+
+    /** Alto de la foto derecha. */
+    public static int uprightHeight(int degrees, int width, int height) {
+        return check(degrees) % 180 == 0 ? height : width;
+    }
+
+    /**
+     * Escribe en {@code out} la transformación de coordenadas del archivo a coordenadas derechas.
+     */
+    public static void fileToUpright(int degrees, int width, int height, Matrix out) {
+        out.setRotate(check(degrees));
+        out.postTranslate(translateX(degrees, width, height), translateY(degrees, width, height));
+    }
+
+    // Tras girar alrededor del origen, la foto queda en cuadrantes negativos: se devuelve a (0, 0)
+    private static float translateX(int degrees, int width, int height) {
+        return degrees == 90 ? height : degrees == 180 ? width : 0;
+    }
+
+    private static float translateY(int degrees, int width, int height) {
+        return degrees == 180 ? height : degrees == 270 ? width : 0;
+    }
+
+    private static int check(int degrees) {
+        if (degrees != 0 && degrees != 90 && degrees != 180 && degrees != 270) {
+            throw new IllegalArgumentException("Rotación no soportada: " + degrees);
+        }
+        return degrees;
+    }
+}
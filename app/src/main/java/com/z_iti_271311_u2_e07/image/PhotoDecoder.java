@@ -0,0 +1,141 @@
+package com.z_iti_271311_u2_e07.image;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import java.io.IOException;
+
+/**
+ * Decodifica la foto a la resolución que necesita cada etapa, no a la de la vista.
+ * <p>
+ * Primero se leen solo las dimensiones del JPEG. Cada decodificación usa el mayor
+ * {@code inSampleSize} potencia de dos que no baje del lado pedido (el decodificador solo reduce
+ * bien en potencias de dos) y después, si sobra, un escalado final al tamaño exacto. Una vez
+ * ubicado el mapa se puede decodificar solo su región con {@link BitmapRegionDecoder}. Las
+ * decodificaciones reutilizan memoria del {@link BitmapPool} con {@code inBitmap}.
+ */
+public final class PhotoDecoder {
+
+    private final BitmapPool pool;
+    private final BitmapFactory.Options options = new BitmapFactory.Options();
+    private String path;
+    private int width;
+    private int height;
+    private BitmapRegionDecoder regionDecoder;
+
+    public PhotoDecoder(BitmapPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Abre una foto nueva leyendo solo sus dimensiones.
+     */
+    public void open(String path) throws IOException {
+        close();
+        options.inJustDecodeBounds = true;
+        options.inSampleSize = 1;
+        options.inBitmap = null;
+        BitmapFactory.decodeFile(path, options);
+        options.inJustDecodeBounds = false;
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("No se pudo leer la imagen: " + path);
+        }
+        this.path = path;
+        this.width = options.outWidth;
+        this.height = options.outHeight;
+    }
+
+    /** Ancho de la foto en el archivo, en píxeles. */
+    public int width() {
+        return width;
+    }
+
+    /** Alto de la foto en el archivo, en píxeles. */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Decodifica la foto completa con su lado mayor en {@code longSide} píxeles como máximo.
+     */
+    public Bitmap decode(int longSide) throws IOException {
+        int sample = sampleSize(width, height, longSide);
+        Bitmap decoded = decodeWithPool(sample, null);
+        if (decoded == null) {
+            throw new IOException("No se pudo decodificar la imagen: " + path);
+        }
+        // Escalado final: el submuestreo solo llega a la potencia de dos más cercana por arriba
+        double scale = (double) longSide / Math.max(decoded.getWidth(), decoded.getHeight());
+        if (scale >= 1.0) {
+            return decoded;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(decoded,
+                Math.max(1, (int) Math.round(decoded.getWidth() * scale)),
+                Math.max(1, (int) Math.round(decoded.getHeight() * scale)), true);
+        pool.release(decoded);
+        return scaled;
+    }
+
+    /**
+     * Decodifica solo {@code region} (en píxeles del archivo), submuestreada para que su lado mayor
+     * no baje de {@code longSide}. No se escala al tamaño exacto: quien la usa la endereza después.
+     */
+    public Bitmap decodeRegion(Rect region, int longSide) throws IOException {
+        if (regionDecoder == null) {
+            regionDecoder = BitmapRegionDecoder.newInstance(path, false);
+        }
+        int sample = sampleSize(region.width(), region.height(), longSide);
+        Bitmap decoded = decodeWithPool(sample, region);
+        if (decoded == null) {
+            throw new IOException("No se pudo decodificar la región " + region + " de " + path);
+        }
+        return decoded;
+    }
+
+    /**
+     * Cierra el decodificador de regiones de la foto actual.
+     */
+    public void close() {
+        if (regionDecoder != null) {
+            regionDecoder.recycle();
+            regionDecoder = null;
+        }
+    }
+
+    /**
+     * Mayor potencia de dos {@code s} tal que el lado mayor entre {@code s} no baje de {@code longSide}.
+     */
+    public static int sampleSize(int width, int height, int longSide) {
+        int side = Math.max(width, height);
+        int sample = 1;
+        while (side / (sample * 2) >= longSide) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private Bitmap decodeWithPool(int sample, Rect region) {
+        int w = region != null ? region.width() : width;
+        int h = region != null ? region.height() : height;
+        options.inSampleSize = sample;
+        options.inMutable = true; // inBitmap solo acepta bitmaps mutables
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inBitmap = pool.reusableFor((w + sample - 1) / sample, (h + sample - 1) / sample);
+        try {
+            return decodeOnce(region);
+        } catch (IllegalArgumentException e) {
+            // El bitmap del pool no sirvió para este decodificador: se reserva uno nuevo
+            pool.release(options.inBitmap);
+            options.inBitmap = null;
+            return decodeOnce(region);
+        } finally {
+            options.inBitmap = null;
+        }
+    }
+
+    private Bitmap decodeOnce(Rect region) {
+        return region != null ? regionDecoder.decodeRegion(region, options) : BitmapFactory.decodeFile(path, options);
+    }
+}
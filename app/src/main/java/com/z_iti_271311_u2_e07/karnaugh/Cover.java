@@ -0,0 +1,104 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.util.Arrays;
+
+/**
+ * Lista reutilizable de implicantes que forman una suma de productos.
+ * Se puede limpiar y volver a llenar sin reservar memoria nueva en cada solución.
+ */
+public final class Cover {
+
+    private long[] cubes;
+    private int size;
+    private int numVars;
+
+    public Cover() {
+        this(16);
+    }
+
+    public Cover(int capacity) {
+        cubes = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * Vacía la cobertura y fija el número de variables de la función.
+     */
+    public void clear(int numVars) {
+        this.numVars = numVars;
+        size = 0;
+    }
+
+    public void add(long cube) {
+        if (size == cubes.length) {
+            cubes = Arrays.copyOf(cubes, size * 2);
+        }
+        cubes[size++] = cube;
+    }
+
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + " fuera de rango (" + size + ")");
+        }
+        return cubes[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int numVars() {
+        return numVars;
+    }
+
+    /**
+     * Total de literales de la expresión (criterio de costo habitual).
+     */
+    public int literalCount() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += Cube.literalCount(cubes[i], numVars);
+        }
+        return total;
+    }
+
+    /**
+     * Evalúa la suma de productos para un mintérmino.
+     */
+    public boolean evaluate(int minterm) {
+        for (int i = 0; i < size; i++) {
+            if (Cube.contains(cubes[i], minterm)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Conjunto de mintérminos cubiertos (solo para hasta 6 variables).
+     */
+    public long minterms() {
+        long bits = 0L;
+        for (int i = 0; i < size; i++) {
+            bits |= Cube.minterms(cubes[i]);
+        }
+        return bits;
+    }
+
+    /**
+     * Copia de los implicantes actuales.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(cubes, size);
+    }
+
+    /**
+     * Expresión como texto; para mostrarla repetidamente conviene un {@link ExpressionRenderer} propio.
+     */
+    public String toExpression() {
+        return new ExpressionRenderer().render(this).toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Operaciones sobre implicantes empaquetados en un {@code long}.
+ * Los 32 bits bajos guardan el valor y los 32 bits altos la máscara de variables
+ * eliminadas (bits en 1 = la variable no aparece en el término).
+ * La variable k (0 = A) corresponde al bit {@code numVars - 1 - k} del mintérmino.
+ */
+public final class Cube {
+
+    private Cube() {
+    }
+
+    /**
+     * Empaqueta un par (valor, máscara). Los bits del valor cubiertos por la máscara se limpian.
+     */
+    public static long of(int value, int mask) {
+        return ((long) mask << 32) | ((value & ~mask) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Implicante que cubre un único mintérmino.
+     */
+    public static long minterm(int minterm) {
+        return of(minterm, 0);
+    }
+
+    public static int value(long cube) {
+        return (int) cube;
+    }
+
+    public static int mask(long cube) {
+        return (int) (cube >>> 32);
+    }
+
+    /**
+     * Indica si el implicante cubre el mintérmino dado.
+     */
+    public static boolean contains(long cube, int minterm) {
+        return ((minterm ^ value(cube)) & ~mask(cube)) == 0;
+    }
+
+    /**
+     * Indica si {@code outer} cubre todos los mintérminos de {@code inner}.
+     */
+    public static boolean covers(long outer, long inner) {
+        int outerMask = mask(outer);
+        return (mask(inner) & ~outerMask) == 0 && ((value(inner) ^ value(outer)) & ~outerMask) == 0;
+    }
+
+    /**
+     * Número de literales del término (variables no eliminadas).
+     */
+    public static int literalCount(long cube, int numVars) {
+        return numVars - Integer.bitCount(mask(cube));
+    }
+
+    /**
+     * Número de mintérminos que cubre el implicante.
+     */
+    public static int size(long cube) {
+        return 1 << Integer.bitCount(mask(cube));
+    }
+
+    /**
+     * Conjunto de mintérminos cubiertos como máscara de bits (solo para hasta 6 variables).
+     */
+    public static long minterms(long cube) {
+        int value = value(cube);
+        int mask = mask(cube);
+        long bits = 0L;
+        // Recorre todos los subconjuntos de la máscara
+        for (int sub = mask; ; sub = (sub - 1) & mask) {
+            bits |= 1L << (value | sub);
+            if (sub == 0) {
+                break;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Construye el implicante que corresponde exactamente al conjunto de mintérminos dado,
+     * o devuelve -1 si el conjunto no forma un subcubo (tamaño potencia de dos y alineado).
+     */
+    public static long fromMinterms(long bits) {
+        if (bits == 0L) {
+            return -1L;
+        }
+        int first = Long.numberOfTrailingZeros(bits);
+        int and = first;
+        int or = first;
+        for (long rest = bits; rest != 0L; rest &= rest - 1) {
+            int m = Long.numberOfTrailingZeros(rest);
+            and &= m;
+            or |= m;
+        }
+        int mask = and ^ or;
+        if (Long.bitCount(bits) != 1 << Integer.bitCount(mask)) {
+            return -1L;
+        }
+        return of(and, mask);
+    }
+
+    /**
+     * Variables que aparecen en el término, en orden de variable (bit k = variable k, 0 = A).
+     */
+    public static int careMask(long cube, int numVars) {
+        return reverse(~mask(cube), numVars);
+    }
+
+    /**
+     * Variables que aparecen sin negar, en orden de variable (bit k = variable k, 0 = A).
+     * Junto con {@link #careMask(long, int)} describe el término sin necesidad de texto.
+     */
+    public static int polarity(long cube, int numVars) {
+        return reverse(value(cube) & ~mask(cube), numVars);
+    }
+
+    // El bit numVars - 1 - k del mintérmino pasa a ser el bit k
+    private static int reverse(int bits, int numVars) {
+        if (numVars == 0) {
+            return 0;
+        }
+        return Integer.reverse(bits) >>> (32 - numVars);
+    }
+}
@@ -0,0 +1,288 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.util.Arrays;
+
+/**
+ * Minimizador heurístico al estilo Espresso (EXPAND, IRREDUNDANT, REDUCE).
+ * <p>
+ * Trabaja sobre una lista de cubos empaquetados en {@code long[]} (ver {@link Cube}) y consulta
+ * la tabla de verdad directamente, sin enumerar todos los implicantes primos, por lo que escala
+ * a funciones de 16 o más variables. El ciclo se repite mientras baje el costo y mientras no se
+ * agote el presupuesto de iteraciones o de tiempo. El resultado siempre es una cobertura válida
+ * formada por implicantes primos, aunque no necesariamente mínima.
+ */
+public final class Espresso implements Minimizer {
+
+    /** Iteraciones REDUCE/EXPAND/IRREDUNDANT por defecto. */
+    public static final int DEFAULT_ITERATIONS = 8;
+
+    /** Presupuesto de tiempo por defecto (50 ms). */
+    public static final long DEFAULT_TIME_BUDGET_NANOS = 50_000_000L;
+
+    private int maxIterations = DEFAULT_ITERATIONS;
+    private long timeBudgetNanos = DEFAULT_TIME_BUDGET_NANOS;
+    private int lastIterations;
+
+    private TruthTable table;
+    private int numVars;
+    private long deadline;
+
+    private long[] cubes = new long[64];
+    private int cubeCount;
+    private long[] best = new long[64];
+    private int bestCount;
+    private int[] coverCount = new int[0];
+    private long[] order = new long[64];
+    private long[] scratch = new long[64];
+
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("El número de iteraciones no puede ser negativo");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Fija el tiempo máximo de refinamiento. La primera cobertura siempre se completa.
+     */
+    public void setTimeBudgetNanos(long timeBudgetNanos) {
+        if (timeBudgetNanos <= 0) {
+            throw new IllegalArgumentException("El presupuesto de tiempo debe ser positivo");
+        }
+        this.timeBudgetNanos = timeBudgetNanos;
+    }
+
+    /**
+     * Iteraciones de refinamiento ejecutadas en la última llamada.
+     */
+    public int lastIterations() {
+        return lastIterations;
+    }
+
+    @Override
+    public void minimize(TruthTable table, Cover out) {
+        this.table = table;
+        this.numVars = table.numVars();
+        this.deadline = System.nanoTime() + timeBudgetNanos;
+        out.clear(numVars);
+        lastIterations = 0;
+        int size = table.size();
+        if (coverCount.length < size) {
+            coverCount = new int[size];
+        } else {
+            Arrays.fill(coverCount, 0, size, 0);
+        }
+
+        initialCover();
+        irredundant();
+        long bestCost = cost();
+        saveBest();
+
+        while (lastIterations < maxIterations && System.nanoTime() < deadline) {
+            lastIterations++;
+            reduce();
+            expandAll();
+            irredundant();
+            long current = cost();
+            if (current >= bestCost) {
+                break;
+            }
+            bestCost = current;
+            saveBest();
+        }
+
+        for (int i = 0; i < bestCount; i++) {
+            out.add(best[i]);
+        }
+        this.table = null;
+    }
+
+    /**
+     * Expande cada uno de la función que aún no esté cubierto; equivale a EXPAND sobre
+     * la cobertura de mintérminos, saltando los que ya absorbió un cubo anterior.
+     */
+    private void initialCover() {
+        cubeCount = 0;
+        for (int w = 0; w < table.words(); w++) {
+            for (long bits = table.onWord(w); bits != 0L; bits &= bits - 1) {
+                int m = (w << 6) | Long.numberOfTrailingZeros(bits);
+                if (coverCount[m] > 0) {
+                    continue;
+                }
+                long cube = expand(Cube.minterm(m));
+                cubes = ensure(cubes, cubeCount + 1);
+                cubes[cubeCount++] = cube;
+                addCoverage(cube, 1);
+            }
+        }
+    }
+
+    /**
+     * EXPAND: agranda un cubo eliminando literales mientras siga siendo implicante.
+     * En cada paso elige la variable cuya mitad nueva cubre más unos de la función.
+     */
+    private long expand(long cube) {
+        int full = (1 << numVars) - 1;
+        while (true) {
+            int value = Cube.value(cube);
+            int mask = Cube.mask(cube);
+            int bestBit = 0;
+            int bestGain = -1;
+            for (int free = full & ~mask; free != 0; free &= free - 1) {
+                int bit = free & -free;
+                int gain = halfGain(value ^ bit, mask);
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestBit = bit;
+                }
+            }
+            if (bestGain < 0) {
+                return cube;
+            }
+            cube = Cube.of(value, mask | bestBit);
+        }
+    }
+
+    /**
+     * Unos de la función en el cubo (value, mask), o -1 si el cubo toca algún cero.
+     * Se prefieren los unos que todavía no cubre nadie.
+     */
+    private int halfGain(int value, int mask) {
+        int gain = 0;
+        for (int sub = mask; ; sub = (sub - 1) & mask) {
+            int m = value | sub;
+            if (table.isOn(m)) {
+                gain += coverCount[m] == 0 ? 2 : 1;
+            } else if (!table.isDontCare(m)) {
+                return -1;
+            }
+            if (sub == 0) {
+                return gain;
+            }
+        }
+    }
+
+    private void expandAll() {
+        for (int i = 0; i < cubeCount && System.nanoTime() < deadline; i++) {
+            addCoverage(cubes[i], -1);
+            cubes[i] = expand(cubes[i]);
+            addCoverage(cubes[i], 1);
+        }
+        // Los cubos que quedaron contenidos en otros los elimina IRREDUNDANT
+    }
+
+    /**
+     * IRREDUNDANT: elimina cubos cuyos unos ya cubren otros cubos, empezando por los más pequeños.
+     */
+    private void irredundant() {
+        sortBySize(true);
+        int kept = 0;
+        for (int i = 0; i < cubeCount; i++) {
+            if (isRedundant(cubes[i])) {
+                addCoverage(cubes[i], -1);
+            } else {
+                cubes[kept++] = cubes[i];
+            }
+        }
+        cubeCount = kept;
+    }
+
+    private boolean isRedundant(long cube) {
+        int value = Cube.value(cube);
+        int mask = Cube.mask(cube);
+        for (int sub = mask; ; sub = (sub - 1) & mask) {
+            int m = value | sub;
+            if (table.isOn(m) && coverCount[m] < 2) {
+                return false;
+            }
+            if (sub == 0) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * REDUCE: encoge cada cubo al menor cubo que contiene los unos que solo él cubre,
+     * empezando por los más grandes, para que EXPAND pueda tomar otra dirección.
+     */
+    private void reduce() {
+        sortBySize(false);
+        int kept = 0;
+        for (int i = 0; i < cubeCount; i++) {
+            long cube = cubes[i];
+            int value = Cube.value(cube);
+            int mask = Cube.mask(cube);
+            int and = -1;
+            int or = 0;
+            boolean any = false;
+            for (int sub = mask; ; sub = (sub - 1) & mask) {
+                int m = value | sub;
+                if (table.isOn(m) && coverCount[m] == 1) {
+                    and &= m;
+                    or |= m;
+                    any = true;
+                }
+                if (sub == 0) {
+                    break;
+                }
+            }
+            addCoverage(cube, -1);
+            if (any) {
+                long reduced = Cube.of(and, and ^ or);
+                addCoverage(reduced, 1);
+                cubes[kept++] = reduced;
+            }
+        }
+        cubeCount = kept;
+    }
+
+    private void addCoverage(long cube, int delta) {
+        int value = Cube.value(cube);
+        int mask = Cube.mask(cube);
+        for (int sub = mask; ; sub = (sub - 1) & mask) {
+            coverCount[value | sub] += delta;
+            if (sub == 0) {
+                return;
+            }
+        }
+    }
+
+    private long cost() {
+        long literals = 0;
+        for (int i = 0; i < cubeCount; i++) {
+            literals += Cube.literalCount(cubes[i], numVars);
+        }
+        return ((long) cubeCount << 32) + literals;
+    }
+
+    private void saveBest() {
+        best = ensure(best, cubeCount);
+        System.arraycopy(cubes, 0, best, 0, cubeCount);
+        bestCount = cubeCount;
+    }
+
+    /**
+     * Ordena por número de variables eliminadas, ascendente o descendente.
+     * La clave de orden se empaqueta junto al cubo para no crear comparadores.
+     */
+    private void sortBySize(boolean ascending) {
+        order = ensure(order, cubeCount);
+        for (int i = 0; i < cubeCount; i++) {
+            int free = Integer.bitCount(Cube.mask(cubes[i]));
+            order[i] = ((long) (ascending ? free : 63 - free) << 58) | i;
+        }
+        Arrays.sort(order, 0, cubeCount);
+        scratch = ensure(scratch, cubeCount);
+        for (int i = 0; i < cubeCount; i++) {
+            scratch[i] = cubes[(int) (order[i] & 0xFFFFFFFFL)];
+        }
+        System.arraycopy(scratch, 0, cubes, 0, cubeCount);
+    }
+
+    private static long[] ensure(long[] array, int capacity) {
+        if (array.length >= capacity) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
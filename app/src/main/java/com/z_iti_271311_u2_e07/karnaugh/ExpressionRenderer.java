@@ -0,0 +1,154 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Renderiza una suma de productos (p. ej. {@code AB'D + C'}) en un buffer de caracteres reutilizable.
+ * <p>
+ * El texto se genera solo cuando se va a mostrar; el resto de la aplicación intercambia los
+ * implicantes como {@code long} (ver {@link Cube}). El renderizador es en sí la
+ * {@link CharSequence} resultante, válida hasta la siguiente llamada a {@code render}, por lo que
+ * renderizar no reserva memoria una vez que el buffer alcanzó su tamaño.
+ * Un término sin literales se escribe {@code 1} y una cobertura vacía {@code 0}.
+ * <p>
+ * Para el producto de sumas la cobertura contiene los implicantes del complemento y cada uno
+ * se escribe como una suma con los literales invertidos (p. ej. {@code (A' + C)(B)}).
+ */
+public final class ExpressionRenderer implements CharSequence {
+
+    private static final String SEPARATOR = " + ";
+
+    private char[] buffer = new char[64];
+    private int length;
+
+    /**
+     * Renderiza la cobertura completa.
+     */
+    public ExpressionRenderer render(Cover cover) {
+        length = 0;
+        int numVars = cover.numVars();
+        int size = cover.size();
+        if (size == 0) {
+            append('0');
+            return this;
+        }
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                appendSeparator();
+            }
+            appendTerm(cover.get(i), numVars);
+        }
+        return this;
+    }
+
+    /**
+     * Renderiza como producto de sumas una cobertura del complemento de la función
+     * (ver {@link KarnaughSolver#solveProductOfSums}).
+     */
+    public ExpressionRenderer renderProductOfSums(Cover complement) {
+        length = 0;
+        int numVars = complement.numVars();
+        int size = complement.size();
+        if (size == 0) {
+            append('1');
+            return this;
+        }
+        for (int i = 0; i < size; i++) {
+            long cube = complement.get(i);
+            int care = Cube.careMask(cube, numVars);
+            if (care == 0) {
+                // El complemento es 1: la función es 0
+                length = 0;
+                append('0');
+                return this;
+            }
+            int positive = Cube.polarity(cube, numVars);
+            append('(');
+            boolean first = true;
+            for (int k = 0; k < numVars; k++) {
+                if ((care & (1 << k)) == 0) {
+                    continue;
+                }
+                if (!first) {
+                    appendSeparator();
+                }
+                first = false;
+                append((char) ('A' + k));
+                if ((positive & (1 << k)) != 0) {
+                    append('\'');
+                }
+            }
+            append(')');
+        }
+        return this;
+    }
+
+    /**
+     * Renderiza un solo término.
+     */
+    public ExpressionRenderer renderTerm(long cube, int numVars) {
+        length = 0;
+        appendTerm(cube, numVars);
+        return this;
+    }
+
+    private void appendTerm(long cube, int numVars) {
+        int care = Cube.careMask(cube, numVars);
+        if (care == 0) {
+            append('1');
+            return;
+        }
+        int positive = Cube.polarity(cube, numVars);
+        for (int k = 0; k < numVars; k++) {
+            if ((care & (1 << k)) == 0) {
+                continue;
+            }
+            append((char) ('A' + k));
+            if ((positive & (1 << k)) == 0) {
+                append('\'');
+            }
+        }
+    }
+
+    private void appendSeparator() {
+        for (int k = 0; k < SEPARATOR.length(); k++) {
+            append(SEPARATOR.charAt(k));
+        }
+    }
+
+    private void append(char c) {
+        if (length == buffer.length) {
+            char[] grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        buffer[length++] = c;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Índice " + index + " fuera de rango (" + length + ")");
+        }
+        return buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Rango " + start + ".." + end + " fuera de " + length);
+        }
+        return new String(buffer, start, end - start);
+    }
+
+    /**
+     * Copia inmutable del texto renderizado.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+}
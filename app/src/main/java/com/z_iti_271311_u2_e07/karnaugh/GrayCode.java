@@ -0,0 +1,39 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Tablas precalculadas de código Gray reflejado para los ejes de un mapa (hasta 8 bits por eje).
+ * Reemplazan la generación de cadenas "00", "01", "11", "10" en cada solución.
+ */
+public final class GrayCode {
+
+    /** Bits máximos por eje cubiertos por las tablas. */
+    public static final int MAX_BITS = 8;
+
+    private static final int[] ENCODE = new int[1 << MAX_BITS];
+    private static final int[] DECODE = new int[1 << MAX_BITS];
+
+    static {
+        for (int i = 0; i < ENCODE.length; i++) {
+            int gray = i ^ (i >>> 1);
+            ENCODE[i] = gray;
+            DECODE[gray] = i;
+        }
+    }
+
+    private GrayCode() {
+    }
+
+    /**
+     * Código Gray de la posición {@code index} sobre el eje.
+     */
+    public static int encode(int index) {
+        return ENCODE[index];
+    }
+
+    /**
+     * Posición sobre el eje que tiene el código Gray {@code gray}.
+     */
+    public static int decode(int gray) {
+        return DECODE[gray];
+    }
+}
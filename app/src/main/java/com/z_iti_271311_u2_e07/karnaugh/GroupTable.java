@@ -0,0 +1,108 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Tabla precalculada de todos los grupos legales de un mapa de Karnaugh de cierta forma.
+ * <p>
+ * Un grupo es el producto de un subcubo del eje de filas por uno del eje de columnas. En los
+ * mapas de hasta 4 variables esto equivale a los rectángulos de tamaño potencia de dos que dan
+ * la vuelta por los bordes; en los de 5 y 6 variables incluye además los grupos que cruzan de
+ * un submapa a su espejo (ver {@link KarnaughMap}).
+ * Cada grupo se guarda como máscara de mintérminos, de modo que comprobar un candidato
+ * contra los conjuntos de unos e indiferentes es un AND y una comparación.
+ * Las tablas se construyen una sola vez por forma, la primera vez que se piden.
+ */
+public final class GroupTable {
+
+    // Índice: log2(filas) * 8 + log2(columnas)
+    private static final GroupTable[] TABLES = new GroupTable[64];
+
+    private final int rows;
+    private final int cols;
+    private final long[] masks;
+    private final long[] cubes;
+
+    private GroupTable(KarnaughMap map) {
+        rows = map.rows();
+        cols = map.cols();
+        int numVars = map.numVars();
+        int colVars = map.colVars();
+        int[] rowCubes = axisCubes(map.rowVars());
+        int[] colCubes = axisCubes(colVars);
+        masks = new long[rowCubes.length * colCubes.length];
+        cubes = new long[masks.length];
+        int count = 0;
+        // De mayor a menor: primero los que eliminan más variables
+        for (int free = numVars; free >= 0; free--) {
+            for (int rowCube : rowCubes) {
+                for (int colCube : colCubes) {
+                    int mask = ((rowCube >>> 16) << colVars) | (colCube >>> 16);
+                    if (Integer.bitCount(mask) != free) {
+                        continue;
+                    }
+                    long cube = Cube.of(((rowCube & 0xFFFF) << colVars) | (colCube & 0xFFFF), mask);
+                    masks[count] = Cube.minterms(cube);
+                    cubes[count] = cube;
+                    count++;
+                }
+            }
+        }
+    }
+
+    // Los 3^bits subcubos de un eje, como (máscara << 16) | valor
+    private static int[] axisCubes(int bits) {
+        int[] result = new int[(int) Math.round(Math.pow(3, bits))];
+        int count = 0;
+        for (int mask = 0; mask < 1 << bits; mask++) {
+            for (int value = 0; value < 1 << bits; value++) {
+                if ((value & mask) == 0) {
+                    result[count++] = (mask << 16) | value;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tabla de grupos para la forma del mapa; se construye la primera vez que se pide.
+     */
+    public static GroupTable forMap(KarnaughMap map) {
+        int key = map.rowVars() * 8 + map.colVars();
+        synchronized (TABLES) {
+            GroupTable table = TABLES[key];
+            if (table == null) {
+                table = new GroupTable(map);
+                TABLES[key] = table;
+            }
+            return table;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Número de grupos, ordenados de mayor a menor tamaño.
+     */
+    public int size() {
+        return masks.length;
+    }
+
+    /**
+     * Mintérminos del grupo {@code index}.
+     */
+    public long mask(int index) {
+        return masks[index];
+    }
+
+    /**
+     * Implicante empaquetado del grupo {@code index}.
+     */
+    public long cube(int index) {
+        return cubes[index];
+    }
+}
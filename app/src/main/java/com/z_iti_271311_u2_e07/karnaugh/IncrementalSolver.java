@@ -0,0 +1,355 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.util.Arrays;
+
+/**
+ * Mantiene los implicantes primos y la cobertura de un mapa mientras se editan sus celdas una a una.
+ * <p>
+ * Cambiar un mintérmino {@code m} solo puede afectar a los cubos que lo contienen o que se
+ * expanden hacia él:
+ * <ul>
+ *     <li>Si {@code m} pasa a 0, se descartan los primos que lo contienen y se reemplazan por sus
+ *     mitades que no lo tocan, expandidas de nuevo hasta ser primas.</li>
+ *     <li>Si {@code m} deja de ser 0, los nuevos primos contienen a {@code m} (a lo más 2^n
+ *     candidatos) y solo se descartan los primos anteriores que queden dentro de alguno.</li>
+ *     <li>Entre 1 e 'X' los primos no cambian, solo lo que hay que cubrir.</li>
+ * </ul>
+ * La cobertura se rehace sobre los primos ya actualizados: primero los esenciales, después el
+ * primo que más unos pendientes cubre (prefiriendo los términos que ya estaban, para que el dibujo
+ * cambie poco) y al final se quitan los términos redundantes.
+ * Solo para hasta 6 variables (cada conjunto cabe en un {@code long}).
+ */
+public final class IncrementalSolver {
+
+    /** Máximo de variables: los conjuntos de mintérminos son máscaras de 64 bits. */
+    public static final int MAX_VARS = 6;
+
+    /** Valores de celda; coinciden con los de la cuadrícula reconstruida. */
+    public static final int OFF = 0;
+    public static final int ON = 1;
+    public static final int DONT_CARE = 2;
+
+    private final QuineMcCluskey primeGenerator = new QuineMcCluskey();
+    private final TruthTable table = new TruthTable();
+    private final Cover cover = new Cover();
+    private long[] primes = new long[64];
+    private long[] primeBits = new long[64];
+    private int primeCount;
+    private long[] scratch = new long[64];
+    private int numVars;
+    private long onSet;
+    private long dcSet;
+    private int lastInvalidated;
+
+    /**
+     * Empieza a seguir la función a partir de una cobertura ya calculada (p. ej. la del agrupador).
+     * Solo aquí se generan todos los primos.
+     */
+    public void reset(KarnaughMap map, long onSet, long dcSet, Cover initial) {
+        int numVars = map.numVars();
+        if (numVars > MAX_VARS) {
+            throw new IllegalArgumentException("Número de variables no soportado: " + numVars);
+        }
+        this.numVars = numVars;
+        this.onSet = onSet & map.allMinterms();
+        this.dcSet = dcSet & map.allMinterms() & ~this.onSet;
+        table.set(numVars, this.onSet, this.dcSet);
+        primeGenerator.generatePrimes(table);
+        primeCount = 0;
+        for (int i = 0; i < primeGenerator.primeCount(); i++) {
+            addPrime(primeGenerator.prime(i));
+        }
+        cover.clear(numVars);
+        for (int i = 0; i < initial.size(); i++) {
+            cover.add(initial.get(i));
+        }
+        lastInvalidated = 0;
+    }
+
+    /**
+     * Cambia el valor de una celda y actualiza primos y cobertura.
+     *
+     * @param value {@link #OFF}, {@link #ON} o {@link #DONT_CARE}
+     */
+    public void setCell(int minterm, int value) {
+        long bit = 1L << minterm;
+        boolean wasOff = ((onSet | dcSet) & bit) == 0L;
+        onSet &= ~bit;
+        dcSet &= ~bit;
+        if (value == ON) {
+            onSet |= bit;
+        } else if (value == DONT_CARE) {
+            dcSet |= bit;
+        } else if (value != OFF) {
+            throw new IllegalArgumentException("Valor de celda no válido: " + value);
+        }
+        boolean isOff = value == OFF;
+        lastInvalidated = 0;
+        if (!wasOff && isOff) {
+            removeMinterm(minterm);
+        } else if (wasOff && !isOff) {
+            addMinterm(minterm);
+        }
+        repairCover();
+    }
+
+    /**
+     * Valor actual de la celda.
+     */
+    public int cell(int minterm) {
+        long bit = 1L << minterm;
+        return (onSet & bit) != 0L ? ON : (dcSet & bit) != 0L ? DONT_CARE : OFF;
+    }
+
+    public long onSet() {
+        return onSet;
+    }
+
+    public long dcSet() {
+        return dcSet;
+    }
+
+    /**
+     * Copia la cobertura actual.
+     */
+    public void copyTo(Cover out) {
+        out.clear(numVars);
+        for (int i = 0; i < cover.size(); i++) {
+            out.add(cover.get(i));
+        }
+    }
+
+    public int primeCount() {
+        return primeCount;
+    }
+
+    public long prime(int index) {
+        return primes[index];
+    }
+
+    /**
+     * Primos descartados por la última edición.
+     */
+    public int lastInvalidated() {
+        return lastInvalidated;
+    }
+
+    private void removeMinterm(int minterm) {
+        long allowed = onSet | dcSet;
+        int replacements = 0;
+        for (int p = primeCount - 1; p >= 0; p--) {
+            if (!Cube.contains(primes[p], minterm)) {
+                continue;
+            }
+            long prime = primes[p];
+            removePrime(p);
+            lastInvalidated++;
+            // Las mitades del primo que no tocan la celda siguen siendo implicantes
+            int mask = Cube.mask(prime);
+            for (int free = mask; free != 0; free &= free - 1) {
+                int b = free & -free;
+                long half = Cube.of((Cube.value(prime) & ~b) | (~minterm & b), mask & ~b);
+                scratch = ensure(scratch, replacements + 1);
+                scratch[replacements++] = expand(half, allowed);
+            }
+        }
+        for (int i = 0; i < replacements; i++) {
+            long candidate = scratch[i];
+            if (!isCoveredByPrime(candidate)) {
+                addPrime(candidate);
+            }
+        }
+    }
+
+    private void addMinterm(int minterm) {
+        long allowed = onSet | dcSet;
+        int full = (1 << numVars) - 1;
+        int start = primeCount;
+        // Candidatos: cada cubo que contiene la celda, de mayor a menor
+        for (int size = numVars; size >= 0; size--) {
+            for (int mask = 0; mask <= full; mask++) {
+                if (Integer.bitCount(mask) != size) {
+                    continue;
+                }
+                long cube = Cube.of(minterm, mask);
+                if ((Cube.minterms(cube) & ~allowed) != 0L) {
+                    continue;
+                }
+                boolean covered = false;
+                for (int p = start; p < primeCount && !covered; p++) {
+                    covered = Cube.covers(primes[p], cube);
+                }
+                if (!covered) {
+                    addPrime(cube);
+                }
+            }
+        }
+        // Los primos anteriores que quedaron dentro de uno nuevo dejan de ser primos
+        int kept = 0;
+        for (int p = 0; p < primeCount; p++) {
+            boolean stale = false;
+            for (int q = start; q < primeCount && p < start && !stale; q++) {
+                stale = Cube.covers(primes[q], primes[p]);
+            }
+            if (stale) {
+                lastInvalidated++;
+                continue;
+            }
+            primes[kept] = primes[p];
+            primeBits[kept] = primeBits[p];
+            kept++;
+        }
+        primeCount = kept;
+    }
+
+    private void repairCover() {
+        long allowed = onSet | dcSet;
+        int kept = 0;
+        for (int i = 0; i < cover.size(); i++) {
+            long term = cover.get(i);
+            if ((Cube.minterms(term) & ~allowed) != 0L) {
+                continue; // Tocaba la celda que pasó a 0
+            }
+            // Un término que quedó dentro de un primo mayor se expande a ese primo
+            scratch = ensure(scratch, kept + 1);
+            scratch[kept++] = expand(term, allowed);
+        }
+        cover.clear(numVars);
+
+        // Primero los esenciales: primos que son la única forma de cubrir algún uno
+        long covered = 0L;
+        for (long rest = onSet; rest != 0L; rest &= rest - 1) {
+            long bit = rest & -rest;
+            if ((covered & bit) != 0L) {
+                continue;
+            }
+            int only = -1;
+            for (int p = 0; p < primeCount; p++) {
+                if ((primeBits[p] & bit) != 0L) {
+                    if (only != -1) {
+                        only = -2;
+                        break;
+                    }
+                    only = p;
+                }
+            }
+            if (only >= 0) {
+                cover.add(primes[only]);
+                covered |= primeBits[only];
+            }
+        }
+        // Después el primo que más unos pendientes cubre; en empate, uno que ya estaba (el dibujo cambia poco)
+        long uncovered = onSet & ~covered;
+        while (uncovered != 0L) {
+            int best = -1;
+            int bestGain = 0;
+            boolean bestKept = false;
+            for (int p = 0; p < primeCount; p++) {
+                int gain = Long.bitCount(primeBits[p] & uncovered);
+                if (gain == 0 || gain < bestGain) {
+                    continue;
+                }
+                boolean wasKept = contains(scratch, kept, primes[p]);
+                if (gain > bestGain || (wasKept && !bestKept) || (wasKept == bestKept
+                        && Cube.literalCount(primes[p], numVars) < Cube.literalCount(primes[best], numVars))) {
+                    best = p;
+                    bestGain = gain;
+                    bestKept = wasKept;
+                }
+            }
+            cover.add(primes[best]);
+            uncovered &= ~primeBits[best];
+        }
+
+        // Quitar términos redundantes, primero los de más literales
+        int size = cover.size();
+        long[] terms = ensure(scratch, size);
+        for (int i = 0; i < size; i++) {
+            terms[i] = cover.get(i);
+        }
+        scratch = terms;
+        boolean[] removed = new boolean[size];
+        for (int round = numVars; round >= 0; round--) {
+            for (int i = 0; i < size; i++) {
+                if (removed[i] || Cube.literalCount(terms[i], numVars) != round) {
+                    continue;
+                }
+                long others = 0L;
+                for (int j = 0; j < size; j++) {
+                    if (j != i && !removed[j]) {
+                        others |= Cube.minterms(terms[j]);
+                    }
+                }
+                if ((onSet & ~others) == 0L) {
+                    removed[i] = true;
+                }
+            }
+        }
+        cover.clear(numVars);
+        for (int i = 0; i < size; i++) {
+            if (!removed[i] && !contains(cover, terms[i])) {
+                cover.add(terms[i]);
+            }
+        }
+    }
+
+    // Libera variables mientras el cubo siga dentro de los unos e indiferentes
+    private long expand(long cube, long allowed) {
+        for (int b = 1; b < 1 << numVars; b <<= 1) {
+            if ((Cube.mask(cube) & b) != 0) {
+                continue;
+            }
+            long larger = Cube.of(Cube.value(cube), Cube.mask(cube) | b);
+            if ((Cube.minterms(larger) & ~allowed) == 0L) {
+                cube = larger;
+            }
+        }
+        return cube;
+    }
+
+    private boolean isCoveredByPrime(long cube) {
+        for (int p = 0; p < primeCount; p++) {
+            if (Cube.covers(primes[p], cube)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(long[] cubes, int count, long cube) {
+        for (int i = 0; i < count; i++) {
+            if (cubes[i] == cube) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(Cover cover, long cube) {
+        for (int i = 0; i < cover.size(); i++) {
+            if (cover.get(i) == cube) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addPrime(long cube) {
+        primes = ensure(primes, primeCount + 1);
+        primeBits = ensure(primeBits, primeCount + 1);
+        primes[primeCount] = cube;
+        primeBits[primeCount] = Cube.minterms(cube);
+        primeCount++;
+    }
+
+    // El orden de los primos no importa: el último ocupa el hueco
+    private void removePrime(int index) {
+        primeCount--;
+        primes[index] = primes[primeCount];
+        primeBits[index] = primeBits[primeCount];
+    }
+
+    private static long[] ensure(long[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+}
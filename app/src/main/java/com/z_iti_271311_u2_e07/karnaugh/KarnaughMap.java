@@ -0,0 +1,178 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Geometría de un mapa de Karnaugh: relaciona cada celda (fila, columna) con su mintérmino.
+ * Las filas usan las variables más significativas y ambos ejes siguen el código Gray,
+ * igual que en el papel (p. ej. 00, 01, 11, 10).
+ * <p>
+ * Los mapas de 5 y 6 variables (4x8 y 8x8) se dibujan como 2 o 4 submapas de 4x4. Con el código
+ * Gray reflejado de 3 bits cada submapa es el espejo de su vecino, así que dos celdas simétricas
+ * respecto a la línea que los separa difieren en una sola variable y pueden agruparse.
+ */
+public final class KarnaughMap {
+
+    /** Máximo de celdas que caben en una máscara {@code long}. */
+    public static final int MAX_CELLS = 64;
+
+    /** Lado máximo de un submapa. */
+    public static final int SUBMAP_SIZE = 4;
+
+    private final int rows;
+    private final int cols;
+    private final int rowVars;
+    private final int colVars;
+    // Tablas precalculadas celda (fila * columnas + columna) <-> mintérmino
+    private final int[] cellMinterms;
+    private final int[] mintermCells;
+
+    public KarnaughMap(int rows, int cols) {
+        if (!isPowerOfTwo(rows) || !isPowerOfTwo(cols) || rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Dimensiones de mapa no válidas: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.rowVars = Integer.numberOfTrailingZeros(rows);
+        this.colVars = Integer.numberOfTrailingZeros(cols);
+        this.cellMinterms = new int[rows * cols];
+        this.mintermCells = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int minterm = (GrayCode.encode(r) << colVars) | GrayCode.encode(c);
+                cellMinterms[r * cols + c] = minterm;
+                mintermCells[minterm] = r * cols + c;
+            }
+        }
+    }
+
+    /**
+     * Mapa de la forma habitual para {@code numVars} variables (1 a 6); las filas toman
+     * la mitad menor de las variables.
+     */
+    public static KarnaughMap forVariables(int numVars) {
+        if (numVars < 1 || 1 << numVars > MAX_CELLS) {
+            throw new IllegalArgumentException("Número de variables no soportado: " + numVars);
+        }
+        return new KarnaughMap(1 << (numVars / 2), 1 << (numVars - numVars / 2));
+    }
+
+    public static boolean isPowerOfTwo(int n) {
+        return n > 0 && (n & (n - 1)) == 0;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int rowVars() {
+        return rowVars;
+    }
+
+    public int colVars() {
+        return colVars;
+    }
+
+    public int numVars() {
+        return rowVars + colVars;
+    }
+
+    public int cellCount() {
+        return rows * cols;
+    }
+
+    /**
+     * Todos los mintérminos del mapa.
+     */
+    public long allMinterms() {
+        return cellCount() == MAX_CELLS ? -1L : (1L << cellCount()) - 1;
+    }
+
+    /**
+     * Filas de cada submapa.
+     */
+    public int subMapRows() {
+        return Math.min(rows, SUBMAP_SIZE);
+    }
+
+    /**
+     * Columnas de cada submapa.
+     */
+    public int subMapCols() {
+        return Math.min(cols, SUBMAP_SIZE);
+    }
+
+    /**
+     * Número de submapas (1, 2 o 4).
+     */
+    public int subMapCount() {
+        return (rows / subMapRows()) * (cols / subMapCols());
+    }
+
+    /**
+     * Mintérmino de la celda (fila, columna).
+     */
+    public int minterm(int row, int col) {
+        return cellMinterms[row * cols + col];
+    }
+
+    /**
+     * Fila en la que aparece el mintérmino.
+     */
+    public int rowOf(int minterm) {
+        return mintermCells[minterm] / cols;
+    }
+
+    /**
+     * Columna en la que aparece el mintérmino.
+     */
+    public int colOf(int minterm) {
+        return mintermCells[minterm] & (cols - 1);
+    }
+
+    /**
+     * Mintérminos de un rectángulo sin dar la vuelta por los bordes.
+     */
+    public long rectangle(int startRow, int startCol, int height, int width) {
+        long bits = 0L;
+        for (int r = startRow; r < startRow + height; r++) {
+            for (int c = startCol; c < startCol + width; c++) {
+                bits |= 1L << minterm(r, c);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Filas que toca el implicante, como máscara de bits (bit r = fila r).
+     */
+    public int rowsOf(long cube) {
+        int value = Cube.value(cube) >>> colVars;
+        int free = Cube.mask(cube) >>> colVars;
+        int result = 0;
+        for (int r = 0; r < rows; r++) {
+            if (((GrayCode.encode(r) ^ value) & ~free) == 0) {
+                result |= 1 << r;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Columnas que toca el implicante, como máscara de bits (bit c = columna c).
+     */
+    public int colsOf(long cube) {
+        int low = cols - 1;
+        int value = Cube.value(cube) & low;
+        int free = Cube.mask(cube) & low;
+        int result = 0;
+        for (int c = 0; c < cols; c++) {
+            if (((GrayCode.encode(c) ^ value) & ~free) == 0) {
+                result |= 1 << c;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Agrupador de mapas de Karnaugh basado en máscaras de bits.
+ * En modo {@link Mode#GREEDY} recorre primero los rectángulos más grandes de la {@link GroupTable}
+ * y marca sus celdas como visitadas, igual que el algoritmo original de la actividad,
+ * sin reservar memoria por solución.
+ * En modo {@link Mode#EXACT} delega en {@link QuineMcCluskey} para obtener una cobertura mínima
+ * y en modo {@link Mode#HEURISTIC} en {@link Espresso}, pensado para muchas variables.
+ * Los conjuntos de unos y de indiferentes ('X') se expresan como máscaras de mintérminos.
+ * El producto de sumas se obtiene minimizando el complemento y varias salidas del mismo tamaño
+ * se pueden minimizar juntas con {@link MultiOutputMinimizer}.
+ */
+public final class KarnaughSolver {
+
+    /** Estrategia de agrupamiento. */
+    public enum Mode {
+        /** Rectángulos más grandes primero (incluidos los que dan la vuelta), sin traslapes. */
+        GREEDY,
+        /** Implicantes primos y cobertura mínima. */
+        EXACT,
+        /** EXPAND/IRREDUNDANT/REDUCE con presupuesto de tiempo. */
+        HEURISTIC
+    }
+
+    /** Con más variables que esto el modo exacto cede al heurístico. */
+    public static final int EXACT_MAX_VARS = 10;
+
+    private final QuineMcCluskey exact = new QuineMcCluskey();
+    private final NpnMinimizer exactByClass = new NpnMinimizer(exact);
+    private final Espresso heuristic = new Espresso();
+    private final MultiOutputMinimizer multiOutput = new MultiOutputMinimizer();
+    private final TruthTable table = new TruthTable();
+    private Mode mode = Mode.EXACT;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Agrupa el mapa y escribe los implicantes resultantes en {@code out}.
+     *
+     * @param map      geometría del mapa
+     * @param onSet    mintérminos con valor 1
+     * @param dcSet    mintérminos indiferentes
+     * @param out      cobertura donde se dejan los implicantes
+     */
+    public void solve(KarnaughMap map, long onSet, long dcSet, Cover out) {
+        if (mode == Mode.GREEDY) {
+            solveGreedy(map, onSet, dcSet, out);
+        } else {
+            table.set(map.numVars(), onSet, dcSet);
+            solve(table, out);
+        }
+    }
+
+    /**
+     * Agrupa los ceros del mapa: {@code out} recibe una suma de productos del complemento, que se
+     * lee como producto de sumas con {@link ExpressionRenderer#renderProductOfSums(Cover)}.
+     */
+    public void solveProductOfSums(KarnaughMap map, long onSet, long dcSet, Cover out) {
+        solve(map, offSet(map, onSet, dcSet), dcSet, out);
+    }
+
+    /**
+     * Ceros del mapa: ni unos ni indiferentes.
+     */
+    public static long offSet(KarnaughMap map, long onSet, long dcSet) {
+        return map.allMinterms() & ~(onSet | dcSet);
+    }
+
+    /**
+     * Minimiza varias salidas que comparten la misma geometría, compartiendo implicantes entre ellas.
+     * Los términos comunes se calculan una sola vez; el modo no influye en este caso.
+     *
+     * @param out una cobertura por salida
+     */
+    public void solveOutputs(KarnaughMap map, long[] onSets, long[] dcSets, Cover[] out) {
+        multiOutput.minimize(map.numVars(), onSets, dcSets, onSets.length, out);
+    }
+
+    /**
+     * Minimizador de varias salidas, para consultar cuántos términos se compartieron.
+     */
+    public MultiOutputMinimizer multiOutput() {
+        return multiOutput;
+    }
+
+    /**
+     * Minimiza una tabla de verdad sin geometría de mapa (p. ej. capturada a mano).
+     * El modo {@link Mode#GREEDY} necesita un mapa, así que aquí se trata como exacto.
+     */
+    public void solve(TruthTable table, Cover out) {
+        if (mode == Mode.HEURISTIC || table.numVars() > EXACT_MAX_VARS) {
+            heuristic.minimize(table, out);
+        } else if (table.numVars() <= NpnCanonizer.MAX_VARS) {
+            // Funciones equivalentes por permutación/negación comparten una sola minimización
+            exactByClass.minimize(table, out);
+        } else {
+            exact.minimize(table, out);
+        }
+    }
+
+    /**
+     * Minimizador heurístico, para ajustar su presupuesto de iteraciones o de tiempo.
+     */
+    public Espresso heuristic() {
+        return heuristic;
+    }
+
+    private void solveGreedy(KarnaughMap map, long onSet, long dcSet, Cover out) {
+        out.clear(map.numVars());
+        GroupTable groups = GroupTable.forMap(map);
+        long allowed = onSet | dcSet;
+        long visited = 0L;
+
+        // Los grupos ya vienen ordenados de mayor a menor tamaño
+        for (int g = 0; g < groups.size(); g++) {
+            long cells = groups.mask(g);
+            if ((cells & ~allowed) != 0L || (cells & visited) != 0L || (cells & onSet) == 0L) {
+                continue;
+            }
+            out.add(groups.cube(g));
+            visited |= cells;
+        }
+    }
+}
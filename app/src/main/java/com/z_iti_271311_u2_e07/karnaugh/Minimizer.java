@@ -0,0 +1,12 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Estrategia de minimización de una tabla de verdad a suma de productos.
+ */
+public interface Minimizer {
+
+    /**
+     * Minimiza la función y deja los implicantes elegidos en {@code out}.
+     */
+    void minimize(TruthTable table, Cover out);
+}
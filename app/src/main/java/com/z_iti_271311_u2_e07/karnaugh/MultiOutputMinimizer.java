@@ -0,0 +1,286 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.util.Arrays;
+
+/**
+ * Minimización conjunta de varias salidas sobre las mismas variables (p. ej. un decodificador
+ * de siete segmentos), compartiendo implicantes entre salidas.
+ * <p>
+ * Cada cubo lleva una etiqueta: la máscara de bits de las salidas para las que es implicante.
+ * Los primos se generan como en Quine–McCluskey, pero al combinar dos cubos la etiqueta es el
+ * AND de ambas; un cubo deja de ser primo solo si se combinó conservando su etiqueta completa.
+ * La cobertura elige primero los esenciales y después, de forma voraz, el primo con más celdas
+ * nuevas por unidad de costo; un término ya elegido para otra salida solo cuesta una entrada más
+ * de la compuerta OR. Al final cada salida descarta los términos que le sobran.
+ * Solo para hasta 6 variables (cada conjunto cabe en un {@code long}) y 32 salidas.
+ */
+public final class MultiOutputMinimizer {
+
+    public static final int MAX_VARS = 6;
+    public static final int MAX_OUTPUTS = 32;
+
+    // Primos etiquetados
+    private long[] level = new long[64];
+    private int[] levelTags = new int[64];
+    private boolean[] subsumed = new boolean[64];
+    private long[] next = new long[64];
+    private int[] nextTags = new int[64];
+    private final LongIntMap levelIndex = new LongIntMap(64);
+    private final LongIntMap nextIndex = new LongIntMap(64);
+    private long[] primes = new long[64];
+    private int[] primeTags = new int[64];
+    private long[] primeBits = new long[64];
+    private int primeCount;
+
+    // Cobertura
+    private int[] used = new int[64];
+    private int sharedTerms;
+
+    /**
+     * Minimiza {@code outputs} funciones de {@code numVars} variables.
+     *
+     * @param onSets  mintérminos con valor 1 de cada salida
+     * @param dcSets  mintérminos indiferentes de cada salida
+     * @param out     una cobertura por salida; cada una recibe sus implicantes
+     */
+    public void minimize(int numVars, long[] onSets, long[] dcSets, int outputs, Cover[] out) {
+        if (numVars < 0 || numVars > MAX_VARS) {
+            throw new IllegalArgumentException("Número de variables no soportado: " + numVars);
+        }
+        if (outputs < 0 || outputs > MAX_OUTPUTS) {
+            throw new IllegalArgumentException("Número de salidas no soportado: " + outputs);
+        }
+        long full = numVars == 6 ? -1L : (1L << (1 << numVars)) - 1;
+        long[] on = new long[outputs];
+        for (int o = 0; o < outputs; o++) {
+            on[o] = onSets[o] & full;
+        }
+        generatePrimes(numVars, on, dcSets, outputs, full);
+        selectCover(numVars, on);
+        for (int o = 0; o < outputs; o++) {
+            out[o].clear(numVars);
+            for (int p = 0; p < primeCount; p++) {
+                if ((used[p] & (1 << o)) != 0) {
+                    out[o].add(primes[p]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Términos distintos de la última solución; un término usado por varias salidas cuenta una vez.
+     */
+    public int sharedTermCount() {
+        return sharedTerms;
+    }
+
+    public int primeCount() {
+        return primeCount;
+    }
+
+    public long prime(int index) {
+        return primes[index];
+    }
+
+    /**
+     * Salidas para las que el primo {@code index} es implicante, como máscara de bits.
+     */
+    public int primeTag(int index) {
+        return primeTags[index];
+    }
+
+    private void generatePrimes(int numVars, long[] on, long[] dc, int outputs, long full) {
+        primeCount = 0;
+        int size = 0;
+        levelIndex.clear(1 << numVars);
+        for (int m = 0; m < 1 << numVars; m++) {
+            int tag = 0;
+            for (int o = 0; o < outputs; o++) {
+                if (((on[o] | dc[o]) & full & (1L << m)) != 0L) {
+                    tag |= 1 << o;
+                }
+            }
+            if (tag != 0) {
+                ensureLevel(size + 1);
+                levelIndex.put(Cube.minterm(m), size);
+                level[size] = Cube.minterm(m);
+                levelTags[size] = tag;
+                size++;
+            }
+        }
+
+        while (size > 0) {
+            Arrays.fill(subsumed, 0, size, false);
+            nextIndex.clear(size);
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                long cube = level[i];
+                int value = Cube.value(cube);
+                int mask = Cube.mask(cube);
+                // La pareja tiene un uno más en una posición libre
+                for (int free = ~(value | mask) & ((1 << numVars) - 1); free != 0; free &= free - 1) {
+                    int bit = free & -free;
+                    int j = levelIndex.get(Cube.of(value | bit, mask));
+                    if (j == LongIntMap.MISSING) {
+                        continue;
+                    }
+                    int tag = levelTags[i] & levelTags[j];
+                    if (tag == 0) {
+                        continue;
+                    }
+                    if (tag == levelTags[i]) {
+                        subsumed[i] = true;
+                    }
+                    if (tag == levelTags[j]) {
+                        subsumed[j] = true;
+                    }
+                    long merged = Cube.of(value, mask | bit);
+                    if (nextIndex.putIfAbsent(merged, nextSize) == LongIntMap.MISSING) {
+                        ensureNext(nextSize + 1);
+                        next[nextSize] = merged;
+                        nextTags[nextSize] = tag;
+                        nextSize++;
+                    }
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (!subsumed[i]) {
+                    addPrime(level[i], levelTags[i]);
+                }
+            }
+            long[] swapCubes = level;
+            level = next;
+            next = swapCubes;
+            int[] swapTags = levelTags;
+            levelTags = nextTags;
+            nextTags = swapTags;
+            size = nextSize;
+            levelIndex.clear(size);
+            for (int i = 0; i < size; i++) {
+                levelIndex.put(level[i], i);
+            }
+            if (subsumed.length < level.length) {
+                subsumed = new boolean[level.length];
+            }
+        }
+    }
+
+    private void selectCover(int numVars, long[] on) {
+        int outputs = on.length;
+        if (used.length < primeCount) {
+            used = new int[primes.length];
+        }
+        Arrays.fill(used, 0, primeCount, 0);
+        long[] need = on.clone();
+
+        // Esenciales: la única forma de cubrir un mintérmino de una salida
+        for (int o = 0; o < outputs; o++) {
+            for (long rest = on[o]; rest != 0L; rest &= rest - 1) {
+                long bit = rest & -rest;
+                int only = -1;
+                for (int p = 0; p < primeCount; p++) {
+                    if ((primeTags[p] & (1 << o)) != 0 && (primeBits[p] & bit) != 0L) {
+                        if (only != -1) {
+                            only = -2;
+                            break;
+                        }
+                        only = p;
+                    }
+                }
+                if (only >= 0) {
+                    use(only, o, need);
+                }
+            }
+        }
+
+        // Voraz: más pares (salida, mintérmino) nuevos por unidad de costo
+        while (true) {
+            int best = -1;
+            int bestGain = 0;
+            int bestCost = 1;
+            for (int p = 0; p < primeCount; p++) {
+                int gain = 0;
+                for (int tag = primeTags[p]; tag != 0; tag &= tag - 1) {
+                    int o = Integer.numberOfTrailingZeros(tag);
+                    gain += Long.bitCount(need[o] & primeBits[p]);
+                }
+                if (gain == 0) {
+                    continue;
+                }
+                int cost = used[p] != 0 ? 1 : Cube.literalCount(primes[p], numVars) + 2;
+                if (best == -1 || (long) gain * bestCost > (long) bestGain * cost) {
+                    best = p;
+                    bestGain = gain;
+                    bestCost = cost;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            for (int tag = primeTags[best]; tag != 0; tag &= tag - 1) {
+                int o = Integer.numberOfTrailingZeros(tag);
+                if ((need[o] & primeBits[best]) != 0L) {
+                    use(best, o, need);
+                }
+            }
+        }
+
+        // Cada salida quita los términos redundantes, primero los que no comparte y los más caros
+        for (int o = 0; o < outputs; o++) {
+            for (int pass = 0; pass < 2; pass++) {
+                for (int p = primeCount - 1; p >= 0; p--) {
+                    if ((used[p] & (1 << o)) == 0 || (pass == 0) == (Integer.bitCount(used[p]) > 1)) {
+                        continue;
+                    }
+                    long others = 0L;
+                    for (int q = 0; q < primeCount; q++) {
+                        if (q != p && (used[q] & (1 << o)) != 0) {
+                            others |= primeBits[q];
+                        }
+                    }
+                    if ((on[o] & ~others) == 0L) {
+                        used[p] &= ~(1 << o);
+                    }
+                }
+            }
+        }
+        sharedTerms = 0;
+        for (int p = 0; p < primeCount; p++) {
+            if (used[p] != 0) {
+                sharedTerms++;
+            }
+        }
+    }
+
+    private void use(int prime, int output, long[] need) {
+        used[prime] |= 1 << output;
+        need[output] &= ~primeBits[prime];
+    }
+
+    private void addPrime(long cube, int tag) {
+        if (primeCount == primes.length) {
+            primes = Arrays.copyOf(primes, primeCount * 2);
+            primeTags = Arrays.copyOf(primeTags, primeCount * 2);
+            primeBits = Arrays.copyOf(primeBits, primeCount * 2);
+        }
+        primes[primeCount] = cube;
+        primeTags[primeCount] = tag;
+        primeBits[primeCount] = Cube.minterms(cube);
+        primeCount++;
+    }
+
+    private void ensureLevel(int size) {
+        if (size > level.length) {
+            level = Arrays.copyOf(level, level.length * 2);
+            levelTags = Arrays.copyOf(levelTags, level.length);
+            subsumed = new boolean[level.length];
+        }
+    }
+
+    private void ensureNext(int size) {
+        if (size > next.length) {
+            next = Arrays.copyOf(next, next.length * 2);
+            nextTags = Arrays.copyOf(nextTags, next.length);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+/**
+ * Forma canónica NPN de funciones de hasta 6 variables.
+ * <p>
+ * Dos funciones son NPN-equivalentes si una se obtiene de la otra permutando entradas,
+ * negando entradas y/o negando la salida. La tabla de verdad completa cabe en un {@code long}
+ * (16 bits para 4 variables), y cada transformación elemental es una operación de máscaras y
+ * corrimientos sobre esa palabra: negar la variable i intercambia bloques de 2^i bits y permutar
+ * dos variables intercambia las posiciones con esos bits distintos. Se recorren todas las
+ * permutaciones (algoritmo de Heap) y todas las negaciones (código Gray) con un solo paso por
+ * transformación y se conserva la menor tabla.
+ * <p>
+ * Para 4 variables sin indiferentes el resultado se memoriza en una tabla de 65 536 entradas
+ * que se llena bajo demanda; las 2^16 funciones caen en 222 clases.
+ */
+public final class NpnCanonizer {
+
+    public static final int MAX_VARS = 6;
+
+    // Posiciones de la tabla cuyo mintérmino tiene el bit i en 0
+    private static final long[] ZERO_MASKS = {
+            0x5555555555555555L,
+            0x3333333333333333L,
+            0x0F0F0F0F0F0F0F0FL,
+            0x00FF00FF00FF00FFL,
+            0x0000FFFF0000FFFFL,
+            0x00000000FFFFFFFFL
+    };
+
+    private static final int[][] SWAPS = new int[MAX_VARS + 1][];
+    private static final byte[][][] PERMS = new byte[MAX_VARS + 1][][];
+    private static final Object LOCK = new Object();
+    private static volatile int[] table4;
+
+    private NpnCanonizer() {
+    }
+
+    /**
+     * Transformación que lleva la función original a su representante canónico.
+     * Si {@code g} es el canónico, la función original es {@code f(τ(m)) = g(m)}
+     * (negada si {@link #outputNegated()}), con {@code τ(m) = permutar(m) ^ flips}.
+     */
+    public static final class Transform {
+        private int numVars;
+        private long canonicalOn;
+        private long canonicalDc;
+        private final byte[] perm = new byte[MAX_VARS];
+        private int flips;
+        private boolean outputNegated;
+
+        public int numVars() {
+            return numVars;
+        }
+
+        public long canonicalOn() {
+            return canonicalOn;
+        }
+
+        public long canonicalDc() {
+            return canonicalDc;
+        }
+
+        public boolean outputNegated() {
+            return outputNegated;
+        }
+
+        /**
+         * Lleva un implicante del espacio canónico al de la función original.
+         */
+        public long toOriginal(long cube) {
+            int value = permute(Cube.value(cube)) ^ flips;
+            return Cube.of(value, permute(Cube.mask(cube)));
+        }
+
+        private int permute(int bits) {
+            int result = 0;
+            for (int k = 0; k < numVars; k++) {
+                if ((bits & (1 << k)) != 0) {
+                    result |= 1 << perm[k];
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Calcula el representante canónico de la función (unos e indiferentes) y la transformación.
+     * El orden es por la tabla de unos y, a igualdad, por la de indiferentes.
+     */
+    public static void canonicalize(int numVars, long onSet, long dcSet, Transform out) {
+        if (numVars < 0 || numVars > MAX_VARS) {
+            throw new IllegalArgumentException("NPN solo admite hasta " + MAX_VARS + " variables");
+        }
+        long full = numVars == 6 ? -1L : (1L << (1 << numVars)) - 1;
+        onSet &= full;
+        dcSet &= full & ~onSet;
+        if (numVars == 4 && dcSet == 0L) {
+            decode4(lookup4((int) onSet), out);
+            return;
+        }
+        search(numVars, onSet, dcSet, full, out);
+    }
+
+    /**
+     * Cuenta las clases NPN de 4 variables sin indiferentes (llena la tabla completa).
+     */
+    public static int classCount4() {
+        boolean[] seen = new boolean[1 << 16];
+        int classes = 0;
+        for (int f = 0; f < 1 << 16; f++) {
+            int canon = lookup4(f) & 0xFFFF;
+            if (!seen[canon]) {
+                seen[canon] = true;
+                classes++;
+            }
+        }
+        return classes;
+    }
+
+    private static void search(int numVars, long onSet, long dcSet, long full, Transform out) {
+        int[] swaps = swaps(numVars);
+        byte[][] perms = perms(numVars);
+        long on = onSet;
+        long dc = dcSet;
+        // -1 es el mayor valor sin signo y ningún par real (unos, indiferentes) lo alcanza
+        long bestOn = -1L;
+        long bestDc = -1L;
+        int bestPerm = 0;
+        int bestFlips = 0;
+        boolean bestNegated = false;
+        int negations = 1 << numVars;
+
+        for (int p = 0; ; p++) {
+            int flips = 0;
+            for (int g = 0; g < negations; g++) {
+                if (g > 0) {
+                    // Código Gray: un solo bit cambia entre g-1 y g
+                    int var = Integer.numberOfTrailingZeros(g);
+                    on = negate(on, var);
+                    dc = negate(dc, var);
+                    flips ^= 1 << var;
+                }
+                long off = full & ~(on | dc);
+                if (less(on, dc, bestOn, bestDc)) {
+                    bestOn = on;
+                    bestDc = dc;
+                    bestPerm = p;
+                    bestFlips = flips;
+                    bestNegated = false;
+                }
+                if (less(off, dc, bestOn, bestDc)) {
+                    bestOn = off;
+                    bestDc = dc;
+                    bestPerm = p;
+                    bestFlips = flips;
+                    bestNegated = true;
+                }
+            }
+            if (numVars > 0) {
+                // Regresar a "sin negaciones" (el último código Gray solo tiene el bit alto)
+                on = negate(on, numVars - 1);
+                dc = negate(dc, numVars - 1);
+            }
+            if (p == swaps.length / 2) {
+                break;
+            }
+            on = swap(on, swaps[2 * p], swaps[2 * p + 1]);
+            dc = swap(dc, swaps[2 * p], swaps[2 * p + 1]);
+        }
+
+        out.numVars = numVars;
+        out.canonicalOn = bestOn;
+        out.canonicalDc = bestDc;
+        System.arraycopy(perms[bestPerm], 0, out.perm, 0, numVars);
+        // Las negaciones se aplicaron después de la permutación: expresarlas en bits originales
+        int flips = 0;
+        for (int k = 0; k < numVars; k++) {
+            if ((bestFlips & (1 << k)) != 0) {
+                flips |= 1 << perms[bestPerm][k];
+            }
+        }
+        out.flips = flips;
+        out.outputNegated = bestNegated;
+    }
+
+    private static boolean less(long on, long dc, long bestOn, long bestDc) {
+        int c = Long.compareUnsigned(on, bestOn);
+        return c < 0 || (c == 0 && Long.compareUnsigned(dc, bestDc) < 0);
+    }
+
+    /**
+     * Tabla de la función con la variable (bit) {@code var} negada.
+     */
+    static long negate(long table, int var) {
+        int shift = 1 << var;
+        long zero = ZERO_MASKS[var];
+        return ((table & zero) << shift) | ((table >>> shift) & zero);
+    }
+
+    /**
+     * Tabla de la función con las variables (bits) {@code i < j} intercambiadas.
+     */
+    static long swap(long table, int i, int j) {
+        long moveUp = ~ZERO_MASKS[i] & ZERO_MASKS[j];
+        int shift = (1 << j) - (1 << i);
+        long moveDown = moveUp << shift;
+        return (table & ~(moveUp | moveDown)) | ((table & moveUp) << shift) | ((table & moveDown) >>> shift);
+    }
+
+    private static int lookup4(int f) {
+        int[] table = table4;
+        if (table == null) {
+            synchronized (LOCK) {
+                if (table4 == null) {
+                    table4 = new int[1 << 16];
+                }
+                table = table4;
+            }
+        }
+        int entry = table[f];
+        if (entry == 0) {
+            Transform t = new Transform();
+            search(4, f, 0L, 0xFFFFL, t);
+            entry = encode4(t);
+            table[f] = entry; // Carrera benigna: cualquier hilo escribe el mismo valor
+        }
+        return entry;
+    }
+
+    // Codificación: bit 31 = lleno, 26 = salida negada, 22..25 flips, 16..21 permutación, 0..15 canónico
+    private static int encode4(Transform t) {
+        byte[][] perms = perms(4);
+        int permIndex = 0;
+        for (int p = 0; p < perms.length; p++) {
+            boolean same = true;
+            for (int k = 0; k < 4 && same; k++) {
+                same = perms[p][k] == t.perm[k];
+            }
+            if (same) {
+                permIndex = p;
+                break;
+            }
+        }
+        return (1 << 31) | (t.outputNegated ? 1 << 26 : 0) | (t.flips << 22) | (permIndex << 16)
+                | (int) t.canonicalOn;
+    }
+
+    private static void decode4(int entry, Transform out) {
+        out.numVars = 4;
+        out.canonicalOn = entry & 0xFFFF;
+        out.canonicalDc = 0L;
+        System.arraycopy(perms(4)[(entry >>> 16) & 0x3F], 0, out.perm, 0, 4);
+        out.flips = (entry >>> 22) & 0xF;
+        out.outputNegated = (entry & (1 << 26)) != 0;
+    }
+
+    /**
+     * Secuencia de intercambios del algoritmo de Heap (pares i, j con i < j).
+     */
+    private static int[] swaps(int numVars) {
+        synchronized (LOCK) {
+            if (SWAPS[numVars] == null) {
+                buildPermutations(numVars);
+            }
+            return SWAPS[numVars];
+        }
+    }
+
+    /**
+     * Permutación vigente antes de cada paso: {@code perm[k]} es el bit original que ocupa la posición k.
+     */
+    private static byte[][] perms(int numVars) {
+        synchronized (LOCK) {
+            if (PERMS[numVars] == null) {
+                buildPermutations(numVars);
+            }
+            return PERMS[numVars];
+        }
+    }
+
+    private static void buildPermutations(int numVars) {
+        int total = 1;
+        for (int k = 2; k <= numVars; k++) {
+            total *= k;
+        }
+        int[] swaps = new int[2 * (total - 1)];
+        byte[][] perms = new byte[total][];
+        byte[] current = new byte[numVars];
+        for (int k = 0; k < numVars; k++) {
+            current[k] = (byte) k;
+        }
+        perms[0] = current.clone();
+        int[] c = new int[numVars];
+        int step = 0;
+        int i = 1;
+        while (i < numVars) {
+            if (c[i] < i) {
+                int a = (i % 2 == 0) ? 0 : c[i];
+                int b = i;
+                // Intercambiar las posiciones a y b: τ' = τ ∘ swap, así perm'[a] = perm[b]
+                byte tmp = current[a];
+                current[a] = current[b];
+                current[b] = tmp;
+                swaps[2 * step] = Math.min(a, b);
+                swaps[2 * step + 1] = Math.max(a, b);
+                step++;
+                perms[step] = current.clone();
+                c[i]++;
+                i = 1;
+            } else {
+                c[i] = 0;
+                i++;
+            }
+        }
+        SWAPS[numVars] = swaps;
+        PERMS[numVars] = perms;
+    }
+}
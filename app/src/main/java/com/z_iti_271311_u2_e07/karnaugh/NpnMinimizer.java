@@ -0,0 +1,118 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimizador con memoria por clase NPN: funciones que solo difieren en el orden o la negación
+ * de sus entradas comparten una única minimización.
+ * <p>
+ * La función se lleva a su representante canónico con {@link NpnCanonizer}; se minimiza el
+ * representante (o su complemento, si la transformación negó la salida) y la cobertura se
+ * guarda en el espacio canónico. Al responder, cada implicante se devuelve a las variables
+ * originales. Permutar y negar entradas no cambia el número de términos ni de literales, así
+ * que una cobertura mínima sigue siéndolo. Las tablas de más de 6 variables pasan directo.
+ */
+public final class NpnMinimizer implements Minimizer {
+
+    /** Entradas por defecto (las 222 clases de 4 variables, con margen para indiferentes). */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Minimizer delegate;
+    private final int capacity;
+    private final LinkedHashMap<Key, long[]> covers;
+    private final NpnCanonizer.Transform transform = new NpnCanonizer.Transform();
+    private final TruthTable canonical = new TruthTable();
+    private final Cover scratch = new Cover();
+    private long hits;
+    private long misses;
+
+    public NpnMinimizer(Minimizer delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    public NpnMinimizer(Minimizer delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.covers = new LinkedHashMap<Key, long[]>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, long[]> eldest) {
+                return size() > NpnMinimizer.this.capacity;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void minimize(TruthTable table, Cover out) {
+        int numVars = table.numVars();
+        if (numVars > NpnCanonizer.MAX_VARS) {
+            delegate.minimize(table, out);
+            return;
+        }
+        NpnCanonizer.canonicalize(numVars, table.onWord(0), table.dcWord(0), transform);
+        Key key = new Key(numVars, transform.canonicalOn(), transform.canonicalDc(), transform.outputNegated());
+        long[] cubes = covers.get(key);
+        if (cubes == null) {
+            misses++;
+            long full = numVars == 6 ? -1L : (1L << (1 << numVars)) - 1;
+            long dc = transform.canonicalDc();
+            // Si la salida quedó negada, la función original corresponde al complemento del canónico
+            long on = transform.outputNegated() ? full & ~(transform.canonicalOn() | dc) : transform.canonicalOn();
+            canonical.set(numVars, on, dc);
+            delegate.minimize(canonical, scratch);
+            cubes = scratch.toArray();
+            covers.put(key, cubes);
+        } else {
+            hits++;
+        }
+        out.clear(numVars);
+        for (long cube : cubes) {
+            out.add(transform.toOriginal(cube));
+        }
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return covers.size();
+    }
+
+    private static final class Key {
+        final int numVars;
+        final long on;
+        final long dc;
+        final boolean negated;
+
+        Key(int numVars, long on, long dc, boolean negated) {
+            this.numVars = numVars;
+            this.on = on;
+            this.dc = dc;
+            this.negated = negated;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return numVars == other.numVars && on == other.on && dc == other.dc && negated == other.negated;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = on * 0x9E3779B97F4A7C15L + dc;
+            h = h * 31 + (numVars << 1 | (negated ? 1 : 0));
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.util.Arrays;
+
+/**
+ * Minimizador exacto Quine–McCluskey con selección de cobertura mínima.
+ * <p>
+ * Los implicantes primos se generan combinando pares (valor, máscara) del mismo nivel:
+ * la pareja de un cubo con {@code k} unos es el cubo con la misma máscara y un uno más
+ * (la clase de popcount siguiente), que se localiza por hash en lugar de comparar todos
+ * contra todos. La cobertura se resuelve por ramificación y poda sobre conjuntos de bits,
+ * que equivale al método de Petrick pero sin expandir el producto de sumas.
+ * El costo es primero el número de términos y después el número de literales.
+ */
+public final class QuineMcCluskey implements Minimizer {
+
+    /** Nodos máximos de la búsqueda antes de quedarse con la mejor cobertura encontrada. */
+    public static final int DEFAULT_NODE_LIMIT = 20_000;
+
+    private static final long TERM_COST = 1L << 16;
+
+    private int nodeLimit = DEFAULT_NODE_LIMIT;
+    private boolean lastExact = true;
+
+    // Generación de primos
+    private long[] level = new long[64];
+    private long[] next = new long[64];
+    private boolean[] merged = new boolean[64];
+    private final LongIntMap levelIndex = new LongIntMap(64);
+    private final LongIntMap nextIndex = new LongIntMap(64);
+    private long[] primes = new long[64];
+    private int primeCount;
+
+    // Tabla de cobertura
+    private int[] mintermIndex = new int[0];
+    private int onCount;
+    private int words;
+    private long[] primeBits = new long[0];
+    private long[] primeCost = new long[0];
+    private int[] coverStart = new int[0];
+    private int[] coverList = new int[0];
+    private long[] usedPrimes = new long[0];
+
+    // Estado de la búsqueda
+    private long[][] uncovered = new long[0][];
+    private int[][] candidates = new int[0][];
+    private int[] chosen = new int[0];
+    private int[] bestChosen = new int[0];
+    private int bestSize;
+    private long bestCost;
+    private long nodes;
+
+    public void setNodeLimit(int nodeLimit) {
+        if (nodeLimit < 1) {
+            throw new IllegalArgumentException("El límite de nodos debe ser positivo");
+        }
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Indica si la última cobertura se demostró mínima (la búsqueda no agotó su límite).
+     */
+    public boolean isLastResultExact() {
+        return lastExact;
+    }
+
+    @Override
+    public void minimize(TruthTable table, Cover out) {
+        int numVars = table.numVars();
+        out.clear(numVars);
+        lastExact = true;
+        if (table.onCount() == 0) {
+            return;
+        }
+        generatePrimes(table);
+        buildCoverTable(table);
+        search();
+        for (int i = 0; i < bestSize; i++) {
+            out.add(primes[bestChosen[i]]);
+        }
+    }
+
+    /**
+     * Número de implicantes primos de la última llamada (después de descartar los que solo cubren 'X').
+     */
+    public int primeCount() {
+        return primeCount;
+    }
+
+    /**
+     * Implicante primo {@code index} de la última llamada.
+     */
+    public long prime(int index) {
+        return primes[index];
+    }
+
+    /**
+     * Genera todos los implicantes primos de la función (unos más indiferentes).
+     */
+    void generatePrimes(TruthTable table) {
+        int numVars = table.numVars();
+        int full = (1 << numVars) - 1;
+        int count = 0;
+        for (int w = 0; w < table.words(); w++) {
+            for (long bits = table.onWord(w) | table.dcWord(w); bits != 0L; bits &= bits - 1) {
+                level = ensure(level, count + 1);
+                level[count++] = Cube.minterm((w << 6) | Long.numberOfTrailingZeros(bits));
+            }
+        }
+
+        primeCount = 0;
+        while (count > 0) {
+            levelIndex.clear(count);
+            if (merged.length < count) {
+                merged = new boolean[level.length];
+            }
+            for (int i = 0; i < count; i++) {
+                levelIndex.put(level[i], i);
+                merged[i] = false;
+            }
+            nextIndex.clear(count);
+            int nextCount = 0;
+            for (int i = 0; i < count; i++) {
+                int value = Cube.value(level[i]);
+                int mask = Cube.mask(level[i]);
+                // Solo se buscan parejas con un uno más, así cada par se visita una vez
+                for (int free = full & ~mask & ~value; free != 0; free &= free - 1) {
+                    int bit = free & -free;
+                    int j = levelIndex.get(Cube.of(value | bit, mask));
+                    if (j == LongIntMap.MISSING) {
+                        continue;
+                    }
+                    merged[i] = true;
+                    merged[j] = true;
+                    long combined = Cube.of(value, mask | bit);
+                    if (nextIndex.putIfAbsent(combined, nextCount) == LongIntMap.MISSING) {
+                        next = ensure(next, nextCount + 1);
+                        next[nextCount++] = combined;
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (!merged[i]) {
+                    primes = ensure(primes, primeCount + 1);
+                    primes[primeCount++] = level[i];
+                }
+            }
+            long[] swap = level;
+            level = next;
+            next = swap;
+            count = nextCount;
+        }
+    }
+
+    private void buildCoverTable(TruthTable table) {
+        int size = table.size();
+        if (mintermIndex.length < size) {
+            mintermIndex = new int[size];
+        }
+        Arrays.fill(mintermIndex, 0, size, -1);
+        onCount = 0;
+        for (int w = 0; w < table.words(); w++) {
+            for (long bits = table.onWord(w); bits != 0L; bits &= bits - 1) {
+                mintermIndex[(w << 6) | Long.numberOfTrailingZeros(bits)] = onCount++;
+            }
+        }
+        words = (onCount + 63) >>> 6;
+
+        // Bits de cobertura de cada primo; se descartan los que solo cubren indiferentes
+        if (primeBits.length < primeCount * words) {
+            primeBits = new long[primeCount * words];
+        }
+        if (primeCost.length < primeCount) {
+            primeCost = new long[primeCount];
+        }
+        int kept = 0;
+        for (int p = 0; p < primeCount; p++) {
+            long cube = primes[p];
+            int value = Cube.value(cube);
+            int mask = Cube.mask(cube);
+            int base = kept * words;
+            Arrays.fill(primeBits, base, base + words, 0L);
+            boolean any = false;
+            for (int sub = mask; ; sub = (sub - 1) & mask) {
+                int idx = mintermIndex[value | sub];
+                if (idx >= 0) {
+                    primeBits[base + (idx >>> 6)] |= 1L << idx;
+                    any = true;
+                }
+                if (sub == 0) {
+                    break;
+                }
+            }
+            if (any) {
+                primes[kept] = cube;
+                primeCost[kept] = TERM_COST + Cube.literalCount(cube, table.numVars());
+                kept++;
+            }
+        }
+        primeCount = kept;
+
+        // Lista compacta (CSR) de primos que cubren cada mintérmino
+        if (coverStart.length < onCount + 1) {
+            coverStart = new int[onCount + 1];
+        }
+        Arrays.fill(coverStart, 0, onCount + 1, 0);
+        for (int p = 0; p < primeCount; p++) {
+            int base = p * words;
+            for (int w = 0; w < words; w++) {
+                for (long bits = primeBits[base + w]; bits != 0L; bits &= bits - 1) {
+                    coverStart[(w << 6) + Long.numberOfTrailingZeros(bits) + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < onCount; i++) {
+            coverStart[i + 1] += coverStart[i];
+        }
+        if (coverList.length < coverStart[onCount]) {
+            coverList = new int[coverStart[onCount]];
+        }
+        int[] fill = Arrays.copyOf(coverStart, onCount);
+        for (int p = 0; p < primeCount; p++) {
+            int base = p * words;
+            for (int w = 0; w < words; w++) {
+                for (long bits = primeBits[base + w]; bits != 0L; bits &= bits - 1) {
+                    coverList[fill[(w << 6) + Long.numberOfTrailingZeros(bits)]++] = p;
+                }
+            }
+        }
+    }
+
+    private void search() {
+        if (uncovered.length < onCount + 1) {
+            uncovered = new long[onCount + 1][];
+            candidates = new int[onCount + 1][];
+            chosen = new int[onCount + 1];
+            bestChosen = new int[onCount + 1];
+        }
+        for (int d = 0; d <= onCount; d++) {
+            if (uncovered[d] == null || uncovered[d].length < words) {
+                uncovered[d] = new long[words];
+            }
+        }
+        int primeWords = (primeCount + 63) >>> 6;
+        if (usedPrimes.length < primeWords) {
+            usedPrimes = new long[primeWords];
+        }
+        long[] root = uncovered[0];
+        Arrays.fill(root, 0, words, -1L);
+        if ((onCount & 63) != 0) {
+            root[words - 1] = (1L << onCount) - 1;
+        }
+        bestCost = Long.MAX_VALUE;
+        bestSize = 0;
+        nodes = 0;
+        branch(0, 0L);
+    }
+
+    private void branch(int depth, long cost) {
+        nodes++;
+        long[] unc = uncovered[depth];
+
+        // Mintérmino pendiente con menos primos que lo cubren (los esenciales primero)
+        int pick = -1;
+        int pickDegree = Integer.MAX_VALUE;
+        for (int w = 0; w < words && pickDegree > 1; w++) {
+            for (long bits = unc[w]; bits != 0L; bits &= bits - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                int degree = coverStart[i + 1] - coverStart[i];
+                if (degree < pickDegree) {
+                    pick = i;
+                    pickDegree = degree;
+                    if (degree == 1) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (pick < 0) {
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestSize = depth;
+                System.arraycopy(chosen, 0, bestChosen, 0, depth);
+            }
+            return;
+        }
+        if (bestCost != Long.MAX_VALUE && cost + lowerBound(unc) >= bestCost) {
+            return;
+        }
+
+        // Candidatos ordenados por mintérminos nuevos cubiertos (descendente)
+        int[] cand = candidates[depth];
+        if (cand == null || cand.length < pickDegree * 2) {
+            cand = candidates[depth] = new int[Math.max(8, pickDegree * 2)];
+        }
+        int start = coverStart[pick];
+        for (int k = 0; k < pickDegree; k++) {
+            int p = coverList[start + k];
+            cand[2 * k] = p;
+            cand[2 * k + 1] = gain(p, unc);
+        }
+        for (int a = 1; a < pickDegree; a++) {
+            int p = cand[2 * a];
+            int g = cand[2 * a + 1];
+            int b = a - 1;
+            while (b >= 0 && cand[2 * b + 1] < g) {
+                cand[2 * b + 2] = cand[2 * b];
+                cand[2 * b + 3] = cand[2 * b + 1];
+                b--;
+            }
+            cand[2 * b + 2] = p;
+            cand[2 * b + 3] = g;
+        }
+
+        long[] child = uncovered[depth + 1];
+        for (int k = 0; k < pickDegree; k++) {
+            if (k > 0 && nodes > nodeLimit) {
+                lastExact = false;
+                return;
+            }
+            int p = cand[2 * k];
+            long newCost = cost + primeCost[p];
+            if (newCost >= bestCost || isDominated(cand, k, unc)) {
+                continue;
+            }
+            int base = p * words;
+            for (int w = 0; w < words; w++) {
+                child[w] = unc[w] & ~primeBits[base + w];
+            }
+            chosen[depth] = p;
+            branch(depth + 1, newCost);
+        }
+    }
+
+    /**
+     * Un candidato sobra si otro anterior cubre los mismos pendientes con costo menor o igual.
+     */
+    private boolean isDominated(int[] cand, int k, long[] unc) {
+        int p = cand[2 * k];
+        int base = p * words;
+        for (int j = 0; j < k; j++) {
+            int q = cand[2 * j];
+            if (primeCost[q] > primeCost[p]) {
+                continue;
+            }
+            int other = q * words;
+            boolean subset = true;
+            for (int w = 0; w < words && subset; w++) {
+                subset = (unc[w] & primeBits[base + w] & ~primeBits[other + w]) == 0L;
+            }
+            if (subset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int gain(int prime, long[] unc) {
+        int base = prime * words;
+        int total = 0;
+        for (int w = 0; w < words; w++) {
+            total += Long.bitCount(unc[w] & primeBits[base + w]);
+        }
+        return total;
+    }
+
+    /**
+     * Cota inferior: mintérminos pendientes sin primos en común necesitan términos distintos.
+     */
+    private long lowerBound(long[] unc) {
+        int primeWords = (primeCount + 63) >>> 6;
+        Arrays.fill(usedPrimes, 0, primeWords, 0L);
+        long bound = 0L;
+        for (int w = 0; w < words; w++) {
+            for (long bits = unc[w]; bits != 0L; bits &= bits - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                int end = coverStart[i + 1];
+                boolean independent = true;
+                long cheapest = Long.MAX_VALUE;
+                for (int k = coverStart[i]; k < end; k++) {
+                    int p = coverList[k];
+                    if ((usedPrimes[p >>> 6] & (1L << p)) != 0L) {
+                        independent = false;
+                        break;
+                    }
+                    cheapest = Math.min(cheapest, primeCost[p]);
+                }
+                if (!independent) {
+                    continue;
+                }
+                for (int k = coverStart[i]; k < end; k++) {
+                    int p = coverList[k];
+                    usedPrimes[p >>> 6] |= 1L << p;
+                }
+                bound += cheapest;
+            }
+        }
+        return bound;
+    }
+
+    private static long[] ensure(long[] array, int capacity) {
+        if (array.length >= capacity) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
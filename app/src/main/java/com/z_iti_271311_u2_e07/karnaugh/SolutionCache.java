@@ -0,0 +1,242 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché LRU de soluciones indexada por la tabla de verdad del mapa
+ * (número de variables, modo, unos e indiferentes como máscaras {@code long}).
+ * <p>
+ * Guarda la cobertura (la expresión se renderiza una sola vez, al pedirla), cuenta aciertos y fallos y se puede
+ * volcar a un archivo binario compacto para conservarla entre ejecuciones de la aplicación.
+ */
+public final class SolutionCache {
+
+    /** Entradas por defecto. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final int MAGIC = 0x4B4D4150; // "KMAP"
+    private static final int VERSION = 1;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Solution> entries;
+    private long hits;
+    private long misses;
+
+    public SolutionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SolutionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, Solution>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Solution> eldest) {
+                return size() > SolutionCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Solución guardada para la función, o {@code null} si no existe.
+     */
+    public synchronized Solution get(int numVars, KarnaughSolver.Mode mode, long onSet, long dcSet) {
+        Solution solution = entries.get(new Key(numVars, mode.ordinal(), onSet, dcSet));
+        if (solution == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return solution;
+    }
+
+    /**
+     * Guarda la cobertura actual como solución de la función y la devuelve.
+     */
+    public synchronized Solution put(KarnaughSolver.Mode mode, long onSet, long dcSet, Cover cover) {
+        Solution solution = new Solution(cover.numVars(), cover.toArray());
+        entries.put(new Key(cover.numVars(), mode.ordinal(), onSet, dcSet), solution);
+        return solution;
+    }
+
+    /**
+     * Busca la función en la caché y, si no está, la resuelve con el agrupador y la guarda.
+     * En ambos casos la cobertura queda en {@code out}.
+     */
+    public Solution getOrSolve(KarnaughSolver solver, KarnaughMap map, long onSet, long dcSet, Cover out) {
+        KarnaughSolver.Mode mode = solver.getMode();
+        Solution solution = get(map.numVars(), mode, onSet, dcSet);
+        if (solution != null) {
+            solution.copyTo(out);
+            return solution;
+        }
+        solver.solve(map, onSet, dcSet, out);
+        return put(mode, onSet, dcSet, out);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Escribe las entradas de la menos a la más reciente para conservar el orden LRU al leerlas.
+     */
+    public synchronized void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<Key, Solution> entry : entries.entrySet()) {
+            Key key = entry.getKey();
+            long[] cubes = entry.getValue().cubes;
+            out.writeByte(key.numVars);
+            out.writeByte(key.mode);
+            out.writeLong(key.onSet);
+            out.writeLong(key.dcSet);
+            out.writeShort(cubes.length);
+            for (long cube : cubes) {
+                out.writeLong(cube);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Agrega las entradas de un archivo escrito con {@link #writeTo(OutputStream)}.
+     * Un archivo con formato desconocido produce {@link IOException} y no modifica la caché.
+     */
+    public synchronized void readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Formato de caché desconocido");
+        }
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Número de entradas no válido: " + count);
+        }
+        LinkedHashMap<Key, Solution> loaded = new LinkedHashMap<>();
+        Cover cover = new Cover();
+        KarnaughSolver.Mode[] modes = KarnaughSolver.Mode.values();
+        for (int i = 0; i < count; i++) {
+            int numVars = in.readUnsignedByte();
+            int mode = in.readUnsignedByte();
+            long onSet = in.readLong();
+            long dcSet = in.readLong();
+            int cubeCount = in.readUnsignedShort();
+            cover.clear(numVars);
+            for (int c = 0; c < cubeCount; c++) {
+                cover.add(in.readLong());
+            }
+            if (mode >= modes.length) {
+                continue; // Modo de una versión futura
+            }
+            loaded.put(new Key(numVars, mode, onSet, dcSet),
+                    new Solution(numVars, cover.toArray()));
+        }
+        entries.putAll(loaded);
+    }
+
+    /**
+     * Cobertura minimizada; los implicantes se exponen como {@code long} para historial y exportación.
+     */
+    public static final class Solution {
+        private final int numVars;
+        private final long[] cubes;
+        private String expression;
+
+        Solution(int numVars, long[] cubes) {
+            this.numVars = numVars;
+            this.cubes = cubes;
+        }
+
+        public int numVars() {
+            return numVars;
+        }
+
+        public int termCount() {
+            return cubes.length;
+        }
+
+        /**
+         * Implicante {@code index} (ver {@link Cube#careMask(long, int)} y {@link Cube#polarity(long, int)}).
+         */
+        public long term(int index) {
+            return cubes[index];
+        }
+
+        /**
+         * Expresión como texto, renderizada la primera vez que se pide.
+         */
+        public synchronized String expression() {
+            if (expression == null) {
+                Cover cover = new Cover(Math.max(1, cubes.length));
+                copyTo(cover);
+                expression = new ExpressionRenderer().render(cover).toString();
+            }
+            return expression;
+        }
+
+        /**
+         * Copia los implicantes a una cobertura reutilizable.
+         */
+        public void copyTo(Cover out) {
+            out.clear(numVars);
+            for (long cube : cubes) {
+                out.add(cube);
+            }
+        }
+    }
+
+    private static final class Key {
+        final int numVars;
+        final int mode;
+        final long onSet;
+        final long dcSet;
+
+        Key(int numVars, int mode, long onSet, long dcSet) {
+            this.numVars = numVars;
+            this.mode = mode;
+            this.onSet = onSet;
+            this.dcSet = dcSet;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return numVars == other.numVars && mode == other.mode
+                    && onSet == other.onSet && dcSet == other.dcSet;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = onSet * 0x9E3779B97F4A7C15L + dcSet;
+            h = h * 31 + (numVars << 4 | mode);
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
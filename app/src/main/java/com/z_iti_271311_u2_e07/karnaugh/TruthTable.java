@@ -0,0 +1,142 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de verdad incompleta: conjunto de unos y de indiferentes como arreglos de bits.
+ * El mintérmino m se guarda en el bit {@code m & 63} de la palabra {@code m >>> 6}.
+ * La instancia es reutilizable para evitar reservar memoria en cada solución.
+ */
+public final class TruthTable {
+
+    /** Máximo de variables soportadas por los minimizadores. */
+    public static final int MAX_VARS = 20;
+
+    private int numVars;
+    private long[] on = new long[1];
+    private long[] dc = new long[1];
+
+    public TruthTable() {
+    }
+
+    public TruthTable(int numVars) {
+        reset(numVars);
+    }
+
+    /**
+     * Crea una tabla de hasta 6 variables a partir de máscaras de un solo {@code long}.
+     */
+    public static TruthTable of(int numVars, long onSet, long dcSet) {
+        TruthTable table = new TruthTable();
+        table.set(numVars, onSet, dcSet);
+        return table;
+    }
+
+    /**
+     * Limpia la tabla y ajusta su tamaño al número de variables.
+     */
+    public void reset(int numVars) {
+        if (numVars < 0 || numVars > MAX_VARS) {
+            throw new IllegalArgumentException("Número de variables no soportado: " + numVars);
+        }
+        this.numVars = numVars;
+        int words = wordCount(numVars);
+        if (on.length < words) {
+            on = new long[words];
+            dc = new long[words];
+        } else {
+            Arrays.fill(on, 0L);
+            Arrays.fill(dc, 0L);
+        }
+    }
+
+    /**
+     * Reemplaza el contenido con máscaras de un solo {@code long} (hasta 6 variables).
+     */
+    public void set(int numVars, long onSet, long dcSet) {
+        if (numVars > 6) {
+            throw new IllegalArgumentException("Una máscara long solo admite hasta 6 variables");
+        }
+        reset(numVars);
+        long valid = numVars == 6 ? -1L : (1L << (1 << numVars)) - 1;
+        on[0] = onSet & valid;
+        dc[0] = dcSet & valid & ~onSet;
+    }
+
+    public static int wordCount(int numVars) {
+        return numVars <= 6 ? 1 : 1 << (numVars - 6);
+    }
+
+    public int numVars() {
+        return numVars;
+    }
+
+    public int size() {
+        return 1 << numVars;
+    }
+
+    public int words() {
+        return wordCount(numVars);
+    }
+
+    public boolean isOn(int minterm) {
+        return (on[minterm >>> 6] & (1L << minterm)) != 0L;
+    }
+
+    public boolean isDontCare(int minterm) {
+        return (dc[minterm >>> 6] & (1L << minterm)) != 0L;
+    }
+
+    public void setOn(int minterm) {
+        on[minterm >>> 6] |= 1L << minterm;
+        dc[minterm >>> 6] &= ~(1L << minterm);
+    }
+
+    public void setDontCare(int minterm) {
+        dc[minterm >>> 6] |= 1L << minterm;
+        on[minterm >>> 6] &= ~(1L << minterm);
+    }
+
+    public void setOff(int minterm) {
+        on[minterm >>> 6] &= ~(1L << minterm);
+        dc[minterm >>> 6] &= ~(1L << minterm);
+    }
+
+    /**
+     * Palabra {@code index} del conjunto de unos.
+     */
+    public long onWord(int index) {
+        return on[index];
+    }
+
+    /**
+     * Palabra {@code index} del conjunto de indiferentes.
+     */
+    public long dcWord(int index) {
+        return dc[index];
+    }
+
+    public int onCount() {
+        int total = 0;
+        for (int i = 0; i < words(); i++) {
+            total += Long.bitCount(on[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Verifica que la cobertura incluya todos los unos y ningún cero.
+     */
+    public boolean isCoveredExactlyBy(Cover cover) {
+        int size = size();
+        for (int m = 0; m < size; m++) {
+            if (isDontCare(m)) {
+                continue;
+            }
+            if (cover.evaluate(m) != isOn(m)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
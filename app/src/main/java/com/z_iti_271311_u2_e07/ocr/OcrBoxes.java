@@ -0,0 +1,41 @@
+package com.z_iti_271311_u2_e07.ocr;
+
+import android.graphics.Rect;
+
+import com.google.mlkit.vision.text.Text;
+import com.z_iti_271311_u2_e07.grid.CellGrid;
+import com.z_iti_271311_u2_e07.grid.OcrBox;
+
+import java.util.List;
+
+/**
+ * Extrae del resultado de ML Kit las cajas de los símbolos que importan al mapa ('1', 'X' o '*').
+ */
+public final class OcrBoxes {
+
+    private OcrBoxes() {
+    }
+
+    /**
+     * Agrega a {@code out} una caja por cada '1', 'X' o '*' de {@code text}, en coordenadas de la
+     * imagen reconocida.
+     */
+    public static void collect(Text text, List<OcrBox> out) {
+        for (Text.TextBlock block : text.getTextBlocks()) {
+            for (Text.Line line : block.getLines()) {
+                for (Text.Element element : line.getElements()) {
+                    String value = element.getText();
+                    Rect box = element.getBoundingBox();
+                    if (box == null) {
+                        continue;
+                    }
+                    if (value.equals("1")) {
+                        out.add(new OcrBox(box.left, box.top, box.right, box.bottom, CellGrid.ONE));
+                    } else if (value.equalsIgnoreCase("X") || value.equals("*")) {
+                        out.add(new OcrBox(box.left, box.top, box.right, box.bottom, CellGrid.DONT_CARE));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.z_iti_271311_u2_e07.ocr;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+/**
+ * Reconocedor de texto de larga vida ligado al ciclo de vida de la actividad.
+ * <p>
+ * El cliente de ML Kit se crea una sola vez al crear la actividad y se calienta con una imagen
+ * diminuta, para que la primera foto no pague la inicialización del modelo; se cierra al destruirla.
+ * Las solicitudes no se fusionan aquí: el pipeline de capturas ya cancela la captura anterior
+ * cuando llega una nueva, así que solo la más reciente espera el resultado.
+ */
+public final class OcrService implements DefaultLifecycleObserver {
+
+    private static final String TAG = "OcrService";
+    private static final int WARM_UP_SIZE = 32;
+
+    private volatile TextRecognizer recognizer; // También se lee desde el hilo del pipeline
+
+    public OcrService(Lifecycle lifecycle) {
+        lifecycle.addObserver(this);
+    }
+
+    @Override
+    public void onCreate(@NonNull LifecycleOwner owner) {
+        recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+        Bitmap blank = Bitmap.createBitmap(WARM_UP_SIZE, WARM_UP_SIZE, Bitmap.Config.ARGB_8888);
+        recognizer.process(InputImage.fromBitmap(blank, 0))
+                .addOnFailureListener(e -> Log.w(TAG, "No se pudo calentar el reconocedor", e))
+                .addOnCompleteListener(task -> blank.recycle());
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        if (recognizer != null) {
+            recognizer.close();
+            recognizer = null;
+        }
+    }
+
+    /**
+     * Reconoce una imagen. Se puede llamar desde cualquier hilo; el pipeline espera el resultado
+     * con {@link Tasks#await}, nunca desde el hilo principal.
+     */
+    public Task<Text> process(InputImage image) {
+        TextRecognizer client = recognizer;
+        if (client == null) {
+            return Tasks.forException(new IllegalStateException("El reconocedor ya se cerró"));
+        }
+        return client.process(image);
+    }
+}
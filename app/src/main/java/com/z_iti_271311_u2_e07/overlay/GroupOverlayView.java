@@ -0,0 +1,71 @@
+package com.z_iti_271311_u2_e07.overlay;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Capa sobre la foto que dibuja los grupos y las celdas editadas como primitivas vectoriales, sin
+ * copiar ni modificar el bitmap de la foto. Las figuras están en coordenadas de la cuadrícula y se
+ * llevan a la vista con la misma matriz que ajusta la foto. Las Paint se crean una sola vez y el
+ * trazo conserva su grosor en pantalla aunque la foto se reduzca.
+ */
+public class GroupOverlayView extends View {
+
+    // Grosor del contorno de los grupos en pantalla, en dp
+    private static final float STROKE_DP = 3;
+
+    private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Matrix gridToView = new Matrix();
+    private final float strokeWidth;
+    private OverlayShapes shapes;
+
+    public GroupOverlayView(Context context) {
+        this(context, null);
+    }
+
+    public GroupOverlayView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        strokeWidth = STROKE_DP * getResources().getDisplayMetrics().density;
+        strokePaint.setStyle(Paint.Style.STROKE);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    /**
+     * Figuras a mostrar, o {@code null} para no dibujar nada. No se copian: solo deben cambiar en
+     * el hilo principal, seguidas de otra llamada a este método.
+     */
+    public void setShapes(@Nullable OverlayShapes shapes) {
+        this.shapes = shapes;
+        invalidate();
+    }
+
+    /**
+     * Transformación de coordenadas de la cuadrícula a la vista (se copia).
+     */
+    public void setGridToView(Matrix matrix) {
+        gridToView.set(matrix);
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (shapes == null || shapes.isEmpty()) {
+            return;
+        }
+        // El lienzo escala también los trazos: se compensa para que el grosor no dependa de la foto
+        float scale = gridToView.mapRadius(1f);
+        strokePaint.setStrokeWidth(scale > 0 ? strokeWidth / scale : strokeWidth);
+        int saved = canvas.save();
+        canvas.concat(gridToView);
+        shapes.draw(canvas, strokePaint, textPaint);
+        canvas.restoreToCount(saved);
+    }
+}
@@ -0,0 +1,87 @@
+package com.z_iti_271311_u2_e07.overlay;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+/**
+ * Figuras del dibujo de una solución, en coordenadas de la cuadrícula: un rectángulo por bloque
+ * contiguo de cada grupo y el valor de las celdas editadas a mano. Se guardan en arreglos que
+ * crecen y se reutilizan al limpiar, y se dibujan igual en {@link GroupOverlayView} que al
+ * componer la imagen que se guarda.
+ */
+public final class OverlayShapes {
+
+    private float[] rects = new float[4 * 16]; // left, top, right, bottom
+    private int[] rectColors = new int[16];
+    private int rectCount;
+    private float[] labels = new float[3 * 8]; // x, línea base y tamaño del texto
+    private String[] labelTexts = new String[8];
+    private int[] labelColors = new int[8];
+    private int labelCount;
+
+    /**
+     * Quita todas las figuras sin liberar los arreglos.
+     */
+    public void clear() {
+        rectCount = 0;
+        Arrays.fill(labelTexts, 0, labelCount, null);
+        labelCount = 0;
+    }
+
+    public boolean isEmpty() {
+        return rectCount == 0 && labelCount == 0;
+    }
+
+    /**
+     * Agrega el contorno de un rectángulo.
+     */
+    public void addRect(float left, float top, float right, float bottom, int color) {
+        if (rectCount == rectColors.length) {
+            rects = Arrays.copyOf(rects, rects.length * 2);
+            rectColors = Arrays.copyOf(rectColors, rectColors.length * 2);
+        }
+        int offset = 4 * rectCount;
+        rects[offset] = left;
+        rects[offset + 1] = top;
+        rects[offset + 2] = right;
+        rects[offset + 3] = bottom;
+        rectColors[rectCount++] = color;
+    }
+
+    /**
+     * Agrega un texto centrado en {@code x} sobre la línea base {@code baseline}.
+     */
+    public void addLabel(String text, float x, float baseline, float size, int color) {
+        if (labelCount == labelTexts.length) {
+            labels = Arrays.copyOf(labels, labels.length * 2);
+            labelTexts = Arrays.copyOf(labelTexts, labelTexts.length * 2);
+            labelColors = Arrays.copyOf(labelColors, labelColors.length * 2);
+        }
+        int offset = 3 * labelCount;
+        labels[offset] = x;
+        labels[offset + 1] = baseline;
+        labels[offset + 2] = size;
+        labelTexts[labelCount] = text;
+        labelColors[labelCount++] = color;
+    }
+
+    /**
+     * Dibuja las figuras en un lienzo que ya está en coordenadas de la cuadrícula. Solo cambia el
+     * color de las Paint (y el tamaño del texto); el estilo y el grosor los pone quien llama.
+     */
+    public void draw(Canvas canvas, Paint stroke, Paint text) {
+        for (int i = 0; i < rectCount; i++) {
+            int offset = 4 * i;
+            stroke.setColor(rectColors[i]);
+            canvas.drawRect(rects[offset], rects[offset + 1], rects[offset + 2], rects[offset + 3], stroke);
+        }
+        for (int i = 0; i < labelCount; i++) {
+            int offset = 3 * i;
+            text.setColor(labelColors[i]);
+            text.setTextSize(labels[offset + 2]);
+            canvas.drawText(labelTexts[i], labels[offset], labels[offset + 1], text);
+        }
+    }
+}
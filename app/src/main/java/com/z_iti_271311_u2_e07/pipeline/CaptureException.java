@@ -0,0 +1,13 @@
+package com.z_iti_271311_u2_e07.pipeline;
+
+/**
+ * Falla esperada de una captura (p. ej. no se reconoció un mapa), con un mensaje para el usuario.
+ */
+public final class CaptureException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public CaptureException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.z_iti_271311_u2_e07.pipeline;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Una captura en proceso: se cancela cuando llega otra más nueva y mide cada etapa.
+ */
+public final class CaptureJob {
+
+    private final int id;
+    private final StageTimes times = new StageTimes();
+    private volatile boolean cancelled;
+
+    CaptureJob(int id) {
+        this.id = id;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public StageTimes times() {
+        return times;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Corre una etapa y registra su tiempo; antes y después revisa si la captura se canceló.
+     *
+     * @throws CancellationException si llegó una captura más nueva
+     */
+    public <T> T stage(Stage stage, Callable<T> work) throws Exception {
+        throwIfCancelled();
+        T result = timed(stage, work);
+        throwIfCancelled();
+        return result;
+    }
+
+    /**
+     * Corre una etapa y registra su tiempo aunque la captura se haya cancelado (p. ej. guardar
+     * una imagen que ya se mostró).
+     */
+    public <T> T timed(Stage stage, Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            times.record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void throwIfCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Captura " + id + " reemplazada por una más nueva");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.z_iti_271311_u2_e07.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corre el procesamiento de las capturas fuera del hilo principal.
+ * <p>
+ * Las etapas de imagen (decodificar, orientar, preprocesar, reconocer, cuadrícula, resolver,
+ * dibujar) corren en un solo hilo, que es dueño de los Mats y motores reutilizados; guardar va en
+ * otro hilo para no retrasar la siguiente captura. La cola de imagen está acotada: una captura nueva
+ * cancela la que estaba en proceso (y descarta la que esperaba). Los guardados nunca se descartan
+ * ni corren en el hilo que los pide (el principal en la app): esperan en orden en su propio hilo.
+ * Solo el resultado de la captura más reciente llega al {@code callbackExecutor} (el hilo
+ * principal en la app).
+ */
+public final class CapturePipeline {
+
+    /**
+     * Trabajo de una captura, del archivo hasta el resultado listo para mostrar.
+     */
+    public interface Work<T> {
+        T run(CaptureJob job) throws Exception;
+    }
+
+    /**
+     * Recibe el resultado en el {@code callbackExecutor}; no se llama si la captura se canceló.
+     */
+    public interface Callback<T> {
+        void onResult(CaptureJob job, T result);
+
+        void onError(CaptureJob job, Exception error);
+    }
+
+    private final Executor callbackExecutor;
+    private final ThreadPoolExecutor imageExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.DiscardOldestPolicy());
+    private final ThreadPoolExecutor persistExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>());
+    private int nextId;
+    private CaptureJob current;
+    private Future<?> currentFuture;
+
+    public CapturePipeline(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Corre {@code setup} en el hilo de imagen, p. ej. para cargar los modelos que usan las capturas.
+     * Debe llamarse antes de la primera captura, que espera a que termine.
+     */
+    public synchronized void prepare(Runnable setup) {
+        imageExecutor.execute(setup);
+    }
+
+    /**
+     * Empieza a procesar una captura y cancela la anterior si aún no terminaba.
+     */
+    public synchronized <T> CaptureJob submit(Work<T> work, Callback<T> callback) {
+        cancelCurrent();
+        CaptureJob job = new CaptureJob(++nextId);
+        current = job;
+        currentFuture = imageExecutor.submit(() -> {
+            try {
+                T result = work.run(job);
+                deliver(job, () -> callback.onResult(job, result));
+            } catch (CancellationException e) {
+                // Una captura más nueva la reemplazó
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                deliver(job, () -> callback.onError(job, e));
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Guarda en segundo plano, en orden; no se cancela con capturas nuevas.
+     */
+    public void persist(Runnable work) {
+        persistExecutor.execute(work);
+    }
+
+    /**
+     * Cancela lo que esté en proceso, corre {@code cleanup} en el hilo de imagen (dueño de los
+     * recursos) y detiene los hilos.
+     */
+    public synchronized void shutdown(Runnable cleanup) {
+        cancelCurrent();
+        imageExecutor.execute(cleanup);
+        imageExecutor.shutdown();
+        persistExecutor.shutdown();
+    }
+
+    private void cancelCurrent() {
+        if (current != null) {
+            current.cancel();
+            currentFuture.cancel(true);
+            current = null;
+        }
+    }
+
+    // El resultado solo se entrega si ninguna captura nueva llegó mientras tanto
+    private void deliver(CaptureJob job, Runnable action) {
+        callbackExecutor.execute(() -> {
+            if (!job.isCancelled()) {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.z_iti_271311_u2_e07.pipeline;
+
+/**
+ * Etapas del procesamiento de una captura, en orden.
+ */
+public enum Stage {
+    DECODE,
+    ORIENT,
+    PREPROCESS,
+    RECOGNIZE,
+    GRID,
+    SOLVE,
+    RENDER,
+    PERSIST
+}
@@ -0,0 +1,51 @@
+package com.z_iti_271311_u2_e07.pipeline;
+
+import java.util.Locale;
+
+/**
+ * Tiempo de reloj acumulado por etapa de una captura. Se escribe desde los hilos del pipeline y
+ * se lee desde cualquiera.
+ */
+public final class StageTimes {
+
+    private final long[] nanos = new long[Stage.values().length];
+
+    /**
+     * Suma {@code elapsed} nanosegundos a la etapa (una etapa puede correr en varios tramos).
+     */
+    public synchronized void record(Stage stage, long elapsed) {
+        nanos[stage.ordinal()] += elapsed;
+    }
+
+    public synchronized long nanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    public synchronized long totalNanos() {
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Resumen para el log, p. ej. {@code "decode 12.3 ms, orient 0.8 ms, ..."}; omite las etapas que no corrieron.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            long n = nanos[stage.ordinal()];
+            if (n == 0) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(stage.name().toLowerCase(Locale.ROOT)).append(' ')
+                    .append(n / 1_000_000).append('.').append(n / 100_000 % 10).append(" ms");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.CellGrid;
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.ml.KNearest;
+import org.opencv.ml.SVM;
+import org.opencv.ml.StatModel;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Clasifica las celdas de un mapa enderezado en 0, 1 o 'X' sin OCR general.
+ * <p>
+ * La imagen en grises se binariza una vez (tinta en blanco); cada celda de la retícula se recorta
+ * sin sus bordes, se reduce a {@link #CELL_SIZE}x{@link #CELL_SIZE} y se aplana en una fila de
+ * valores entre 0 y 1. Todas las filas van en una sola matriz de muestras y se clasifican con una
+ * sola llamada a {@link StatModel#predict(Mat, Mat, int)}. Las etiquetas del modelo son los valores
+ * de {@link CellGrid}: {@link CellGrid#EMPTY} (vacía o '0'), {@link CellGrid#ONE} y
+ * {@link CellGrid#DONT_CARE} ('X' o '*'). Los Mats y arreglos se reutilizan entre llamadas.
+ * <p>
+ * El modelo que trae la app ({@code assets/cell_classifier.yml}) sale de
+ * {@code ./gradlew :tools:trainCellClassifier}.
+ */
+public final class CellClassifier implements CellRecognizer {
+
+    /** Lado de la celda normalizada, en píxeles; el modelo espera CELL_SIZE² características. */
+    public static final int CELL_SIZE = 20;
+
+    private StatModel model;
+    private final CellCrops crops = new CellCrops();
+    private final Mat cell = new Mat();
+    private final Mat samples = new Mat();
+    private final Mat results = new Mat();
+    private byte[] pixels = new byte[CELL_SIZE * CELL_SIZE];
+    private float[] features = new float[0];
+    private float[] labels = new float[0];
+
+    /**
+     * Carga un modelo entrenado ({@link KNearest} o {@link SVM}) guardado con {@code save()}.
+     *
+     * @return {@code false} si el archivo no contiene un modelo entrenado
+     */
+    public boolean load(String path) throws IOException {
+        StatModel loaded = isSvm(path) ? SVM.load(path) : KNearest.load(path);
+        if (loaded.empty() || !loaded.isTrained() || loaded.getVarCount() != CELL_SIZE * CELL_SIZE) {
+            return false;
+        }
+        model = loaded;
+        return true;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return model != null;
+    }
+
+    /**
+     * Clasifica todas las celdas de datos de la retícula (sin encabezados) en una sola predicción.
+     */
+    @Override
+    public CellGrid classify(Mat gray, GridLattice lattice) {
+        if (model == null) {
+            throw new IllegalStateException("No hay un modelo de celdas cargado");
+        }
+        lattice = lattice.withoutHeaders();
+        int rows = lattice.rows();
+        int cols = lattice.cols();
+        if (labels.length != rows * cols) {
+            labels = new float[rows * cols];
+        }
+        model.predict(samples(gray, lattice), results, 0);
+        results.get(0, 0, labels);
+
+        CellGrid grid = new CellGrid(rows, cols);
+        grid.setLattice(lattice);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int label = Math.round(labels[i * cols + j]);
+                grid.set(i, j, label == CellGrid.ONE || label == CellGrid.DONT_CARE ? label : CellGrid.EMPTY, null);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Una fila de características por celda de {@code lattice} (ya sin encabezados), por filas.
+     * El entrenamiento del modelo usa estas mismas filas.
+     *
+     * @return la matriz de muestras; es del clasificador y vale hasta la siguiente llamada
+     */
+    Mat samples(Mat gray, GridLattice lattice) {
+        int rows = lattice.rows();
+        int cols = lattice.cols();
+        int featureCount = CELL_SIZE * CELL_SIZE;
+        // Mat.put/get copian el arreglo completo: se reserva de nuevo solo si cambia el tamaño del mapa
+        if (features.length != rows * cols * featureCount) {
+            features = new float[rows * cols * featureCount];
+        }
+
+        Mat binary = crops.binarize(gray);
+        Size cellSize = new Size(CELL_SIZE, CELL_SIZE);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                Mat crop = binary.submat(crops.inset(lattice, i, j));
+                Imgproc.resize(crop, cell, cellSize, 0, 0, Imgproc.INTER_AREA);
+                crop.release();
+                cell.get(0, 0, pixels);
+                int offset = (i * cols + j) * featureCount;
+                for (int k = 0; k < featureCount; k++) {
+                    features[offset + k] = (pixels[k] & 0xFF) / 255f;
+                }
+            }
+        }
+        samples.create(rows * cols, featureCount, CvType.CV_32F);
+        samples.put(0, 0, features);
+        return samples;
+    }
+
+    @Override
+    public void release() {
+        model = null;
+        crops.release();
+        cell.release();
+        samples.release();
+        results.release();
+    }
+
+    // Los modelos guardados por OpenCV llevan su tipo en la cabecera (opencv_ml_svm, opencv_ml_knn)
+    private static boolean isSvm(String path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            for (int i = 0; i < 4; i++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                if (line.contains("opencv_ml_svm")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
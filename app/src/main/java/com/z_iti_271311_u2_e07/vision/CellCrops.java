@@ -0,0 +1,49 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Recortes de celdas comunes a los motores de {@link CellRecognizer}: la imagen se binariza una
+ * vez (tinta en blanco) y de cada celda se toma solo su interior, sin las líneas del mapa.
+ */
+final class CellCrops {
+
+    // Fracción de cada lado de la celda que se descarta para no ver las líneas del mapa
+    private static final double MARGIN = 0.12;
+
+    private final Mat binary = new Mat();
+
+    /**
+     * Binariza la imagen en grises; los recortes siguientes se toman de este resultado.
+     */
+    Mat binarize(Mat gray) {
+        Imgproc.adaptiveThreshold(gray, binary, 255, Imgproc.ADAPTIVE_THRESH_MEAN_C,
+                Imgproc.THRESH_BINARY_INV, 15, 10);
+        return binary;
+    }
+
+    /**
+     * Interior de la celda, recortado a la imagen binarizada.
+     */
+    Rect inset(GridLattice lattice, int row, int col) {
+        int top = lattice.rowEdge(row);
+        int bottom = lattice.rowEdge(row + 1);
+        int left = lattice.colEdge(col);
+        int right = lattice.colEdge(col + 1);
+        int dy = (int) ((bottom - top) * MARGIN);
+        int dx = (int) ((right - left) * MARGIN);
+        int x0 = Math.min(Math.max(0, left + dx), binary.cols() - 1);
+        int y0 = Math.min(Math.max(0, top + dy), binary.rows() - 1);
+        int x1 = Math.min(binary.cols(), right - dx);
+        int y1 = Math.min(binary.rows(), bottom - dy);
+        return new Rect(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+    }
+
+    void release() {
+        binary.release();
+    }
+}
@@ -0,0 +1,30 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.CellGrid;
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+
+import org.opencv.core.Mat;
+
+/**
+ * Motor que reconoce el valor de cada celda de un mapa a partir de su retícula, como alternativa
+ * al OCR general de la página.
+ */
+public interface CellRecognizer {
+
+    /**
+     * Indica si el modelo está cargado y el motor se puede usar.
+     */
+    boolean isLoaded();
+
+    /**
+     * Reconoce todas las celdas de datos de la retícula (sin encabezados).
+     *
+     * @param gray imagen en grises de 8 bits en las mismas coordenadas que la retícula
+     */
+    CellGrid classify(Mat gray, GridLattice lattice);
+
+    /**
+     * Libera el modelo y los Mats intermedios.
+     */
+    void release();
+}
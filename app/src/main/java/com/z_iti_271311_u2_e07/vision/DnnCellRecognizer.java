@@ -0,0 +1,139 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.CellGrid;
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Image2BlobParams;
+import org.opencv.dnn.Net;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reconoce las celdas con una red convolucional pequeña en ONNX, cargada con {@link Dnn#readNetFromONNX}.
+ * <p>
+ * Los recortes binarizados de todas las celdas se apilan en un solo blob 4D (N×1×
+ * {@link #INPUT_SIZE}×{@link #INPUT_SIZE}, valores entre 0 y 1) y se clasifican con una sola
+ * llamada a {@link Net#forward()}. La red devuelve una fila de puntuaciones por celda y la clase
+ * es el índice de la mayor, con los valores de {@link CellGrid}: {@link CellGrid#EMPTY},
+ * {@link CellGrid#ONE} y {@link CellGrid#DONT_CARE}. El blob, la lista de recortes y los arreglos
+ * de puntuaciones se reutilizan entre llamadas.
+ * <p>
+ * La red que trae la app ({@code assets/cell_net.onnx}) sale de {@code ./gradlew :tools:trainCellNet}.
+ */
+public final class DnnCellRecognizer implements CellRecognizer {
+
+    /** Lado de la entrada de la red, en píxeles. */
+    public static final int INPUT_SIZE = 28;
+
+    private static final int CLASSES = 3;
+
+    private Net net;
+    private final CellCrops crops = new CellCrops();
+    // Equivalente a blobFromImages(images, 1 / 255, INPUT_SIZE², 0), pero escribiendo en un blob propio
+    private final Image2BlobParams blobParams = new Image2BlobParams(new Scalar(1.0 / 255),
+            new Size(INPUT_SIZE, INPUT_SIZE), new Scalar(0), false, CvType.CV_32F);
+    private final Mat blob = new Mat();
+    private final List<Mat> images = new ArrayList<>();
+    private float[] scores = new float[0];
+
+    /**
+     * Carga la red desde un archivo ONNX.
+     *
+     * @return {@code false} si el archivo no contiene una red válida
+     */
+    public boolean load(String path) {
+        Net loaded = Dnn.readNetFromONNX(path);
+        if (loaded.empty()) {
+            return false;
+        }
+        net = loaded;
+        return true;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return net != null;
+    }
+
+    /**
+     * Reconoce todas las celdas de datos de la retícula (sin encabezados) en una sola pasada de la red.
+     */
+    @Override
+    public CellGrid classify(Mat gray, GridLattice lattice) {
+        if (net == null) {
+            throw new IllegalStateException("No hay una red de celdas cargada");
+        }
+        lattice = lattice.withoutHeaders();
+        int rows = lattice.rows();
+        int cols = lattice.cols();
+        int count = rows * cols;
+
+        net.setInput(blob(gray, lattice));
+        Mat output = net.forward();
+        long total = output.total();
+        int classes = (int) (total / count);
+        if (classes < CLASSES) {
+            output.release();
+            throw new IllegalStateException("La red devuelve " + total + " valores para " + count + " celdas");
+        }
+        // Mat.get copia el arreglo completo: se reserva de nuevo solo si cambia el tamaño del mapa
+        if (scores.length != count * classes) {
+            scores = new float[count * classes];
+        }
+        Mat rowsPerCell = output.reshape(1, count);
+        rowsPerCell.get(0, 0, scores);
+        rowsPerCell.release();
+        output.release();
+
+        CellGrid grid = new CellGrid(rows, cols);
+        grid.setLattice(lattice);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int offset = (i * cols + j) * classes;
+                int best = CellGrid.EMPTY;
+                for (int c = 1; c < CLASSES; c++) {
+                    if (scores[offset + c] > scores[offset + best]) {
+                        best = c;
+                    }
+                }
+                grid.set(i, j, best, null);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Apila los recortes de todas las celdas de {@code lattice} (ya sin encabezados), por filas,
+     * en el blob de entrada de la red. El entrenamiento de la red usa este mismo blob.
+     *
+     * @return el blob; es del reconocedor y vale hasta la siguiente llamada
+     */
+    Mat blob(Mat gray, GridLattice lattice) {
+        Mat binary = crops.binarize(gray);
+        images.clear();
+        for (int i = 0; i < lattice.rows(); i++) {
+            for (int j = 0; j < lattice.cols(); j++) {
+                images.add(binary.submat(crops.inset(lattice, i, j)));
+            }
+        }
+        Dnn.blobFromImagesWithParams(images, blob, blobParams);
+        for (Mat image : images) {
+            image.release();
+        }
+        images.clear();
+        return blob;
+    }
+
+    @Override
+    public void release() {
+        net = null;
+        crops.release();
+        blob.release();
+    }
+}
@@ -0,0 +1,163 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+
+/**
+ * Detecta las líneas dibujadas del mapa para recuperar la retícula de celdas sin depender del OCR,
+ * de modo que las filas y columnas con puros ceros también cuentan.
+ * <p>
+ * Sobre una copia reducida de la imagen en grises: umbral adaptativo (tinta en blanco),
+ * apertura morfológica con un elemento largo horizontal y otro vertical para quedarse solo con
+ * las líneas, y {@link Imgproc#HoughLinesP} en cada máscara. Las posiciones de los segmentos se
+ * agrupan en una dimensión pesadas por su longitud; cada grupo con suficiente longitud total es
+ * un borde de la retícula. También acepta una imagen ya binarizada, como la salida binaria de
+ * {@link ImagePreprocessor}. Los Mats intermedios se reutilizan entre llamadas.
+ */
+public final class GridLineDetector {
+
+    /** Lado mayor de la imagen de trabajo, en píxeles. */
+    public static final int WORK_SIZE = 800;
+
+    // Longitud mínima de una línea y del elemento morfológico, como fracción del lado de trabajo
+    private static final double MIN_LINE_FRACTION = 1.0 / 8;
+    // Fracción de la longitud del borde más largo que debe sumar un grupo para ser borde
+    private static final double MIN_EDGE_COVERAGE = 0.4;
+    // Al reducir una máscara las líneas finas quedan grises: desde este valor cuentan como tinta
+    private static final int MASK_THRESHOLD = 64;
+
+    private final Mat small = new Mat();
+    private final Mat binary = new Mat();
+    private final Mat horizontal = new Mat();
+    private final Mat vertical = new Mat();
+    private final Mat lines = new Mat();
+
+    /**
+     * Busca la retícula en una imagen en grises de 8 bits.
+     *
+     * @return la retícula en coordenadas de {@code gray}, o {@code null} si no hay al menos
+     *         dos bordes por eje
+     */
+    public GridLattice detect(Mat gray) {
+        double scale = shrink(gray);
+        Imgproc.adaptiveThreshold(small, binary, 255, Imgproc.ADAPTIVE_THRESH_MEAN_C,
+                Imgproc.THRESH_BINARY_INV, 15, 10);
+        return findLattice(scale);
+    }
+
+    /**
+     * Busca la retícula en una imagen ya binarizada (tinta en blanco), sin volver a calcular el umbral.
+     *
+     * @return la retícula en coordenadas de {@code mask}, o {@code null} si no hay al menos
+     *         dos bordes por eje
+     */
+    public GridLattice detectBinary(Mat mask) {
+        double scale = shrink(mask);
+        Imgproc.threshold(small, binary, MASK_THRESHOLD, 255, Imgproc.THRESH_BINARY);
+        return findLattice(scale);
+    }
+
+    /**
+     * Libera los Mats intermedios.
+     */
+    public void release() {
+        small.release();
+        binary.release();
+        horizontal.release();
+        vertical.release();
+        lines.release();
+    }
+
+    // Copia reducida a WORK_SIZE en small; devuelve la escala aplicada
+    private double shrink(Mat image) {
+        double scale = Math.min(1.0, (double) WORK_SIZE / Math.max(image.cols(), image.rows()));
+        if (scale < 1.0) {
+            Imgproc.resize(image, small, new Size(), scale, scale, Imgproc.INTER_AREA);
+        } else {
+            image.copyTo(small);
+        }
+        return scale;
+    }
+
+    private GridLattice findLattice(double scale) {
+        int minLength = (int) (Math.max(small.cols(), small.rows()) * MIN_LINE_FRACTION);
+        Mat horizontalKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(minLength, 1));
+        Mat verticalKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(1, minLength));
+        Imgproc.morphologyEx(binary, horizontal, Imgproc.MORPH_OPEN, horizontalKernel);
+        Imgproc.morphologyEx(binary, vertical, Imgproc.MORPH_OPEN, verticalKernel);
+        horizontalKernel.release();
+        verticalKernel.release();
+
+        int tolerance = Math.max(3, Math.max(small.cols(), small.rows()) / 100);
+        int[] rowEdges = edges(horizontal, true, minLength, tolerance, scale);
+        int[] colEdges = edges(vertical, false, minLength, tolerance, scale);
+        if (rowEdges.length < 2 || colEdges.length < 2) {
+            return null;
+        }
+        return new GridLattice(rowEdges, colEdges);
+    }
+
+    private int[] edges(Mat mask, boolean horizontalLines, int minLength, int tolerance, double scale) {
+        Imgproc.HoughLinesP(mask, lines, 1, Math.PI / 180, minLength / 2, minLength, tolerance);
+        int count = lines.rows();
+        // Posición (y de las horizontales, x de las verticales) y longitud de cada segmento
+        long[] packed = new long[count];
+        int[] segment = new int[4];
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            lines.get(i, 0, segment);
+            int dx = Math.abs(segment[2] - segment[0]);
+            int dy = Math.abs(segment[3] - segment[1]);
+            if (horizontalLines ? dy * 4 > dx : dx * 4 > dy) {
+                continue; // Demasiado inclinado para ser una línea del eje
+            }
+            int position = horizontalLines ? (segment[1] + segment[3]) / 2 : (segment[0] + segment[2]) / 2;
+            int length = horizontalLines ? dx : dy;
+            packed[found++] = ((long) position << 32) | length;
+        }
+        Arrays.sort(packed, 0, found);
+
+        // Barrido en una dimensión: media pesada por longitud y longitud total de cada grupo
+        double[] positions = new double[found];
+        long[] lengths = new long[found];
+        int groups = 0;
+        double weighted = 0;
+        long total = 0;
+        int last = Integer.MIN_VALUE;
+        for (int i = 0; i < found; i++) {
+            int position = (int) (packed[i] >> 32);
+            int length = (int) packed[i];
+            if (total > 0 && position - last > tolerance) {
+                positions[groups] = weighted / total;
+                lengths[groups++] = total;
+                weighted = 0;
+                total = 0;
+            }
+            weighted += (double) position * length;
+            total += length;
+            last = position;
+        }
+        if (total > 0) {
+            positions[groups] = weighted / total;
+            lengths[groups++] = total;
+        }
+
+        long longest = 0;
+        for (int i = 0; i < groups; i++) {
+            longest = Math.max(longest, lengths[i]);
+        }
+        int[] result = new int[groups];
+        int kept = 0;
+        for (int i = 0; i < groups; i++) {
+            if (lengths[i] >= longest * MIN_EDGE_COVERAGE) {
+                result[kept++] = (int) Math.round(positions[i] / scale);
+            }
+        }
+        return Arrays.copyOf(result, kept);
+    }
+}
@@ -0,0 +1,179 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.imgproc.CLAHE;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Preprocesa la foto para las etapas de reconocimiento, sobre Mats reutilizados entre llamadas.
+ * <p>
+ * RGBA a grises, giro a la orientación derecha (solo si la foto viene rotada), ecualización de
+ * contraste local con {@link CLAHE} (sombras y reflejos del papel) y, opcionalmente, corrección de
+ * la inclinación: el ángulo es la media, pesada por longitud, de los segmentos largos casi
+ * horizontales o casi verticales que encuentra {@link Imgproc#HoughLinesP} en una copia reducida.
+ * La salida es la imagen en grises (para el OCR y los motores de celdas) o su umbral adaptativo
+ * con la tinta en blanco (para la retícula); la binaria se calcula solo si se pide.
+ */
+public final class ImagePreprocessor {
+
+    /** Forma de la salida. */
+    public enum Output {
+        GRAY,
+        BINARY
+    }
+
+    /** Lado mayor de la copia en la que se estima la inclinación, en píxeles. */
+    public static final int SKEW_WORK_SIZE = 600;
+
+    // Inclinaciones menores no valen la interpolación; mayores seguramente no son del mapa
+    private static final double MIN_SKEW = 0.5;
+    private static final double MAX_SKEW = 15;
+    // Longitud mínima de un segmento para estimar la inclinación, como fracción del lado de trabajo
+    private static final double MIN_LINE_FRACTION = 1.0 / 4;
+
+    private final CLAHE clahe = Imgproc.createCLAHE(2.0, new Size(8, 8));
+    private final Mat gray = new Mat();
+    private final Mat rotated = new Mat();
+    private final Mat enhanced = new Mat();
+    private final Mat deskewed = new Mat();
+    private final Mat binary = new Mat();
+    private final Mat small = new Mat();
+    private final Mat smallBinary = new Mat();
+    private final Mat lines = new Mat();
+    private boolean deskew;
+    private Mat result;
+    private boolean binaryReady;
+    private double skew;
+
+    /**
+     * Activa o desactiva la corrección de la inclinación (innecesaria si el mapa ya se enderezó).
+     */
+    public void setDeskew(boolean deskew) {
+        this.deskew = deskew;
+    }
+
+    /**
+     * Preprocesa una imagen RGBA de 8 bits que hay que girar {@code rotation} grados en sentido
+     * horario para verla derecha.
+     *
+     * @return la salida pedida; el Mat es del preprocesador y vale hasta la siguiente llamada
+     */
+    public Mat process(Mat rgba, int rotation, Output output) {
+        Imgproc.cvtColor(rgba, gray, Imgproc.COLOR_RGBA2GRAY);
+        Mat upright = gray;
+        if (rotation != 0) {
+            Core.rotate(gray, rotated, rotateCode(rotation));
+            upright = rotated;
+        }
+        clahe.apply(upright, enhanced);
+        result = enhanced;
+        skew = 0;
+        if (deskew) {
+            double angle = estimateSkew(enhanced);
+            if (Math.abs(angle) >= MIN_SKEW) {
+                Point center = new Point(enhanced.cols() / 2.0, enhanced.rows() / 2.0);
+                Mat transform = Imgproc.getRotationMatrix2D(center, angle, 1.0);
+                Imgproc.warpAffine(enhanced, deskewed, transform, enhanced.size(),
+                        Imgproc.INTER_LINEAR, Core.BORDER_REPLICATE);
+                transform.release();
+                result = deskewed;
+                skew = angle;
+            }
+        }
+        binaryReady = false;
+        return output(output);
+    }
+
+    /**
+     * La última imagen procesada en la forma pedida, sin repetir las etapas comunes.
+     */
+    public Mat output(Output output) {
+        if (result == null) {
+            throw new IllegalStateException("No hay una imagen preprocesada");
+        }
+        if (output == Output.GRAY) {
+            return result;
+        }
+        if (!binaryReady) {
+            // El bloque crece con la imagen para abarcar siempre el trazo y algo de papel
+            int block = Math.max(15, (Math.max(result.cols(), result.rows()) / 64) | 1);
+            Imgproc.adaptiveThreshold(result, binary, 255, Imgproc.ADAPTIVE_THRESH_MEAN_C,
+                    Imgproc.THRESH_BINARY_INV, block, 10);
+            binaryReady = true;
+        }
+        return binary;
+    }
+
+    /**
+     * Ángulo corregido en la última imagen, en grados en sentido antihorario (la convención de
+     * {@link Imgproc#getRotationMatrix2D}) alrededor del centro; 0 si no se corrigió.
+     */
+    public double skew() {
+        return skew;
+    }
+
+    /**
+     * Libera los Mats intermedios.
+     */
+    public void release() {
+        gray.release();
+        rotated.release();
+        enhanced.release();
+        deskewed.release();
+        binary.release();
+        small.release();
+        smallBinary.release();
+        lines.release();
+        result = null;
+    }
+
+    private double estimateSkew(Mat image) {
+        double scale = Math.min(1.0, (double) SKEW_WORK_SIZE / Math.max(image.cols(), image.rows()));
+        Imgproc.resize(image, small, new Size(), scale, scale, Imgproc.INTER_AREA);
+        Imgproc.adaptiveThreshold(small, smallBinary, 255, Imgproc.ADAPTIVE_THRESH_MEAN_C,
+                Imgproc.THRESH_BINARY_INV, 15, 10);
+        int minLength = (int) (Math.max(small.cols(), small.rows()) * MIN_LINE_FRACTION);
+        Imgproc.HoughLinesP(smallBinary, lines, 1, Math.PI / 180, minLength / 2, minLength, 3);
+
+        int[] segment = new int[4];
+        double weighted = 0;
+        double total = 0;
+        for (int i = 0; i < lines.rows(); i++) {
+            lines.get(i, 0, segment);
+            double dx = segment[2] - segment[0];
+            double dy = segment[3] - segment[1];
+            // Con y hacia abajo, un ángulo positivo es una línea que baja hacia la derecha
+            double angle = Math.toDegrees(Math.atan2(dy, dx));
+            if (angle > 90) {
+                angle -= 180;
+            } else if (angle <= -90) {
+                angle += 180;
+            }
+            // Las verticales dan la misma inclinación medida desde los 90 grados
+            double deviation = angle > 45 ? angle - 90 : angle < -45 ? angle + 90 : angle;
+            if (Math.abs(deviation) > MAX_SKEW) {
+                continue;
+            }
+            double length = Math.hypot(dx, dy);
+            weighted += deviation * length;
+            total += length;
+        }
+        return total > 0 ? weighted / total : 0;
+    }
+
+    private static int rotateCode(int rotation) {
+        switch (rotation) {
+            case 90:
+                return Core.ROTATE_90_CLOCKWISE;
+            case 180:
+                return Core.ROTATE_180;
+            case 270:
+                return Core.ROTATE_90_COUNTERCLOCKWISE;
+            default:
+                throw new IllegalArgumentException("Rotación no soportada: " + rotation);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Localiza la tabla del mapa en la foto y la endereza, para que el OCR trabaje solo sobre el mapa.
+ * <p>
+ * En una copia reducida: suavizado, bordes de Canny, dilatación para cerrar huecos y
+ * {@link Imgproc#findContours}; cada contorno externo se simplifica con {@link Imgproc#approxPolyDP}
+ * y se queda el cuadrilátero convexo de mayor área. La región se lleva a un rectángulo de tamaño
+ * canónico con {@link Imgproc#getPerspectiveTransform} y {@link Imgproc#warpPerspective}.
+ * Los Mats intermedios se reutilizan entre llamadas.
+ */
+public final class MapLocalizer {
+
+    /** Lado mayor de la imagen de trabajo, en píxeles. */
+    public static final int WORK_SIZE = 600;
+
+    /** Lado mayor del mapa enderezado, en píxeles. */
+    public static final int CANONICAL_SIZE = 1024;
+
+    // Área mínima del cuadrilátero respecto a la imagen
+    private static final double MIN_AREA_FRACTION = 0.05;
+    // Tolerancia de approxPolyDP respecto al perímetro
+    private static final double APPROX_EPSILON = 0.02;
+
+    private final Mat small = new Mat();
+    private final Mat edges = new Mat();
+    private final Mat hierarchy = new Mat();
+    private final Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(3, 3));
+
+    /**
+     * Busca el cuadrilátero más grande en una imagen en grises de 8 bits.
+     *
+     * @return sus esquinas en coordenadas de {@code gray}, en orden superior izquierda, superior
+     *         derecha, inferior derecha e inferior izquierda; o {@code null} si no hay ninguno
+     */
+    public Point[] locate(Mat gray) {
+        double scale = Math.min(1.0, (double) WORK_SIZE / Math.max(gray.cols(), gray.rows()));
+        Imgproc.resize(gray, small, new Size(), scale, scale, Imgproc.INTER_AREA);
+        Imgproc.GaussianBlur(small, small, new Size(5, 5), 0);
+        Imgproc.Canny(small, edges, 50, 150);
+        Imgproc.dilate(edges, edges, kernel);
+
+        List<MatOfPoint> contours = new ArrayList<>();
+        Imgproc.findContours(edges, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        double minArea = MIN_AREA_FRACTION * small.cols() * small.rows();
+        double bestArea = 0;
+        Point[] best = null;
+        MatOfPoint2f curve = new MatOfPoint2f();
+        MatOfPoint2f approx = new MatOfPoint2f();
+        MatOfPoint approxInt = new MatOfPoint();
+        for (MatOfPoint contour : contours) {
+            double area = Imgproc.contourArea(contour);
+            if (area >= minArea && area > bestArea) {
+                contour.convertTo(curve, CvType.CV_32FC2);
+                Imgproc.approxPolyDP(curve, approx, APPROX_EPSILON * Imgproc.arcLength(curve, true), true);
+                if (approx.rows() == 4) {
+                    approx.convertTo(approxInt, CvType.CV_32SC2);
+                    if (Imgproc.isContourConvex(approxInt)) {
+                        bestArea = area;
+                        best = approx.toArray();
+                    }
+                }
+            }
+            contour.release();
+        }
+        curve.release();
+        approx.release();
+        approxInt.release();
+        if (best == null) {
+            return null;
+        }
+        for (Point corner : best) {
+            corner.x /= scale;
+            corner.y /= scale;
+        }
+        return orderCorners(best);
+    }
+
+    /**
+     * Endereza la región de {@code src} delimitada por {@code corners} (en el orden de
+     * {@link #locate(Mat)}) a un rectángulo con lado mayor {@link #CANONICAL_SIZE}.
+     */
+    public void rectify(Mat src, Point[] corners, Mat dst) {
+        double width = Math.max(distance(corners[0], corners[1]), distance(corners[3], corners[2]));
+        double height = Math.max(distance(corners[0], corners[3]), distance(corners[1], corners[2]));
+        double scale = CANONICAL_SIZE / Math.max(width, height);
+        int w = Math.max(1, (int) Math.round(width * scale));
+        int h = Math.max(1, (int) Math.round(height * scale));
+
+        MatOfPoint2f from = new MatOfPoint2f(corners);
+        MatOfPoint2f to = new MatOfPoint2f(
+                new Point(0, 0), new Point(w - 1, 0), new Point(w - 1, h - 1), new Point(0, h - 1));
+        Mat transform = Imgproc.getPerspectiveTransform(from, to);
+        Imgproc.warpPerspective(src, dst, transform, new Size(w, h), Imgproc.INTER_LINEAR);
+        transform.release();
+        from.release();
+        to.release();
+    }
+
+    /**
+     * Libera los Mats intermedios.
+     */
+    public void release() {
+        small.release();
+        edges.release();
+        hierarchy.release();
+        kernel.release();
+    }
+
+    // Superior izquierda: menor x + y; inferior derecha: mayor x + y; superior derecha: menor y - x
+    private static Point[] orderCorners(Point[] points) {
+        Point[] ordered = new Point[4];
+        for (Point p : points) {
+            if (ordered[0] == null || p.x + p.y < ordered[0].x + ordered[0].y) {
+                ordered[0] = p;
+            }
+            if (ordered[2] == null || p.x + p.y > ordered[2].x + ordered[2].y) {
+                ordered[2] = p;
+            }
+            if (ordered[1] == null || p.y - p.x < ordered[1].y - ordered[1].x) {
+                ordered[1] = p;
+            }
+            if (ordered[3] == null || p.y - p.x > ordered[3].y - ordered[3].x) {
+                ordered[3] = p;
+            }
+        }
+        return ordered;
+    }
+
+    private static double distance(Point a, Point b) {
+        return Math.hypot(a.x - b.x, a.y - b.y);
+    }
+}
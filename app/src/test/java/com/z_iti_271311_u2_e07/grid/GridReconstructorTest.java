@@ -0,0 +1,94 @@
+package com.z_iti_271311_u2_e07.grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la reconstrucción de la cuadrícula a partir de cajas de OCR.
+ */
+public class GridReconstructorTest {
+
+    private final GridReconstructor reconstructor = new GridReconstructor();
+
+    @Test
+    public void sameLayout_atAnyScale() {
+        for (double scale : new double[]{0.3, 1.0, 4.0}) {
+            List<OcrBox> ones = new ArrayList<>();
+            List<OcrBox> dontCares = new ArrayList<>();
+            int[][] cells = layout(4, 4, scale, 0.0, new Random(11), ones, dontCares);
+            assertGrid(cells, reconstructor.reconstruct(ones, dontCares));
+        }
+    }
+
+    @Test
+    public void rotatedAndNoisyLayout() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 50; trial++) {
+            List<OcrBox> ones = new ArrayList<>();
+            List<OcrBox> dontCares = new ArrayList<>();
+            int[][] cells = layout(4, 8, 1.0, Math.toRadians(3.0), random, ones, dontCares);
+            assertGrid(cells, reconstructor.reconstruct(ones, dontCares));
+        }
+    }
+
+    @Test
+    public void lattice_keepsRowsAndColumnsOfZeros() {
+        // 4x4 con encabezados: bordes cada 100 px, la primera fila y columna son 00, 01, 11, 10
+        int[] edges = {0, 100, 200, 300, 400, 500};
+        GridLattice lattice = new GridLattice(edges, edges);
+        List<OcrBox> boxes = new ArrayList<>();
+        boxes.add(new OcrBox(130, 120, 170, 180, CellGrid.ONE));       // (0, 0)
+        boxes.add(new OcrBox(430, 220, 470, 280, CellGrid.DONT_CARE)); // (1, 3)
+        boxes.add(new OcrBox(30, 320, 70, 380, CellGrid.ONE));         // encabezado, se ignora
+        CellGrid grid = reconstructor.reconstruct(boxes, lattice);
+        assertEquals(4, grid.rows());
+        assertEquals(4, grid.cols());
+        assertEquals(CellGrid.ONE, grid.value(0, 0));
+        assertEquals(CellGrid.DONT_CARE, grid.value(1, 3));
+        assertEquals(CellGrid.EMPTY, grid.value(2, 0));
+        // Las filas sin símbolos tienen bordes por la retícula
+        assertEquals(400, grid.rowTop(3));
+        assertEquals(500, grid.rowBottom(3));
+        assertEquals(3, grid.rowAt(450));
+    }
+
+    private static void assertGrid(int[][] expected, CellGrid grid) {
+        assertEquals(expected.length, grid.rows());
+        assertEquals(expected[0].length, grid.cols());
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[0].length; j++) {
+                assertEquals("(" + i + ", " + j + ")", expected[i][j], grid.value(i, j));
+            }
+        }
+    }
+
+    // Celdas de 140 px con glifos de 38x58 px, escaladas y giradas; al menos un símbolo por fila y columna
+    private static int[][] layout(int rows, int cols, double scale, double angle, Random random,
+                                  List<OcrBox> ones, List<OcrBox> dontCares) {
+        int[][] cells = new int[rows][cols];
+        double jitter = 6 * scale;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int kind = i == j % rows ? CellGrid.ONE : random.nextInt(3);
+                cells[i][j] = kind;
+                if (kind == CellGrid.EMPTY) {
+                    continue;
+                }
+                double x = j * 140 * scale;
+                double y = i * 140 * scale;
+                double cx = 200 * scale + x * Math.cos(angle) - y * Math.sin(angle) + random.nextGaussian() * jitter;
+                double cy = 300 * scale + x * Math.sin(angle) + y * Math.cos(angle) + random.nextGaussian() * jitter;
+                int w = (int) (38 * scale);
+                int h = (int) (58 * scale);
+                OcrBox box = new OcrBox((int) cx - w / 2, (int) cy - h / 2, (int) cx + w / 2, (int) cy + h / 2, kind);
+                (kind == CellGrid.ONE ? ones : dontCares).add(box);
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,28 @@
+package com.z_iti_271311_u2_e07.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del tamaño de la foto derecha según su rotación.
+ */
+public class OrientationTest {
+
+    // Foto de 400x300 en el archivo
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 300;
+
+    @Test
+    public void uprightSize_swapsSidesOnQuarterTurns() {
+        assertEquals(WIDTH, Orientation.uprightWidth(0, WIDTH, HEIGHT));
+        assertEquals(WIDTH, Orientation.uprightWidth(180, WIDTH, HEIGHT));
+        assertEquals(HEIGHT, Orientation.uprightWidth(90, WIDTH, HEIGHT));
+        assertEquals(WIDTH, Orientation.uprightHeight(270, WIDTH, HEIGHT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void uprightSize_rejectsOtherAngles() {
+        Orientation.uprightWidth(45, WIDTH, HEIGHT);
+    }
+}
@@ -0,0 +1,30 @@
+package com.z_iti_271311_u2_e07.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la elección del submuestreo.
+ */
+public class PhotoDecoderTest {
+
+    @Test
+    public void sampleSize_isLargestPowerOfTwoAboveTarget() {
+        // 12 MP: 4000 / 2 = 2000 ya no llega a 2048, 4000 / 4 = 1000 sí llega a 600
+        assertEquals(1, PhotoDecoder.sampleSize(4000, 3000, 2048));
+        assertEquals(4, PhotoDecoder.sampleSize(4000, 3000, 600));
+        // 50 MP: 8160 / 4 = 2040 se queda corto, así que basta con 2
+        assertEquals(2, PhotoDecoder.sampleSize(8160, 6120, 2048));
+        // Se toma el lado mayor aunque la foto esté en vertical
+        assertEquals(4, PhotoDecoder.sampleSize(3000, 4000, 600));
+    }
+
+    @Test
+    public void sampleSize_neverUpsamples() {
+        // Foto más chica que el objetivo (el cálculo anterior daba 0)
+        assertEquals(1, PhotoDecoder.sampleSize(640, 480, 2048));
+        assertEquals(1, PhotoDecoder.sampleSize(2048, 1536, 2048));
+        assertEquals(2, PhotoDecoder.sampleSize(4096, 3072, 2048));
+    }
+}
@@ -0,0 +1,53 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del minimizador heurístico.
+ */
+public class EspressoTest {
+
+    private final Espresso espresso = new Espresso();
+    private final Cover cover = new Cover();
+
+    @Test
+    public void simpleMap_matchesExact() {
+        long onSet = (1L << 0) | (1L << 2) | (1L << 8) | (1L << 10);
+        espresso.minimize(TruthTable.of(4, onSet, 0L), cover);
+        assertEquals("B'D'", cover.toExpression());
+    }
+
+    @Test
+    public void coverIsAlwaysValid() {
+        Random random = new Random(7);
+        TruthTable table = new TruthTable();
+        for (int i = 0; i < 500; i++) {
+            long onSet = random.nextLong() & 0xFFFFL;
+            long dcSet = random.nextLong() & random.nextLong() & 0xFFFFL;
+            table.set(4, onSet, dcSet);
+            espresso.minimize(table, cover);
+            assertTrue(table.isCoveredExactlyBy(cover));
+        }
+    }
+
+    @Test
+    public void sixteenVariables_findsLargeCubes() {
+        // f = A·B' + C·D·E (el resto de variables no importa)
+        TruthTable table = new TruthTable(16);
+        for (int m = 0; m < table.size(); m++) {
+            boolean ab = (m & 0x8000) != 0 && (m & 0x4000) == 0;
+            boolean cde = (m & 0x3800) == 0x3800;
+            if (ab || cde) {
+                table.setOn(m);
+            }
+        }
+        espresso.minimize(table, cover);
+        assertTrue(table.isCoveredExactlyBy(cover));
+        assertEquals(2, cover.size());
+        assertEquals(5, cover.literalCount());
+    }
+}
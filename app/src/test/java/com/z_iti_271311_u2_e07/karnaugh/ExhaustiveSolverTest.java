@@ -0,0 +1,227 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verificación exhaustiva de los modos del agrupador sobre las 2^16 funciones de 4 variables,
+ * más una muestra de conjuntos de indiferentes por función.
+ * <p>
+ * Cada cobertura se evalúa en paralelo de bits (la unión de los mintérminos de sus implicantes
+ * es una máscara de 16 bits) y se compara con el mínimo de una búsqueda por fuerza bruta que no
+ * comparte código con el agrupador: de los 81 cubos de 4 variables toma los que caben en unos e
+ * indiferentes sin poder crecer (ningún cubo con un literal menos cabe), y ramifica y poda sobre
+ * los que contienen el primer uno sin cubrir. Las funciones se reparten con un stream paralelo
+ * (ForkJoin) y cada hilo usa sus propias instancias. Se imprime el rendimiento (soluciones por segundo, medido
+ * en una pasada solo con el modo probado) y la optimalidad en literales de cada modo.
+ */
+public class ExhaustiveSolverTest {
+
+    private static final int FUNCTIONS = 1 << 16;
+    private static final int DONT_CARE_SAMPLES = 3;
+    private static final KarnaughMap MAP = new KarnaughMap(4, 4);
+
+    // Los 3^4 cubos de 4 variables: sus mintérminos, sus literales y sus cubos con un literal menos
+    private static final int CUBES = 81;
+    private static final int[] CUBE_MINTERMS = new int[CUBES];
+    private static final int[] CUBE_LITERALS = new int[CUBES];
+    private static final int[][] CUBE_PARENTS = new int[CUBES][];
+    // Costo de un término en cost(); más que los literales de cualquier cobertura de 4 variables
+    private static final int TERM_COST = 64;
+
+    static {
+        for (int c = 0; c < CUBES; c++) {
+            // Dígito ternario por variable: 0 o 1 es el literal, 2 es la variable libre
+            int[] digits = new int[4];
+            int rest = c;
+            int parentCount = 0;
+            for (int v = 0; v < 4; v++) {
+                digits[v] = rest % 3;
+                rest /= 3;
+                if (digits[v] != 2) {
+                    CUBE_LITERALS[c]++;
+                    parentCount++;
+                }
+            }
+            for (int m = 0; m < 16; m++) {
+                boolean inside = true;
+                for (int v = 0; v < 4; v++) {
+                    if (digits[v] != 2 && ((m >> v) & 1) != digits[v]) {
+                        inside = false;
+                    }
+                }
+                if (inside) {
+                    CUBE_MINTERMS[c] |= 1 << m;
+                }
+            }
+            CUBE_PARENTS[c] = new int[parentCount];
+            int power = 1;
+            for (int v = 0, p = 0; v < 4; v++, power *= 3) {
+                if (digits[v] != 2) {
+                    CUBE_PARENTS[c][p++] = c + (2 - digits[v]) * power;
+                }
+            }
+        }
+    }
+
+    /** Resultados acumulados de un modo. */
+    private static final class Stats {
+        final AtomicLong solves = new AtomicLong();
+        final AtomicLong invalid = new AtomicLong();
+        final AtomicLong optimal = new AtomicLong();
+        final AtomicLong extraLiterals = new AtomicLong();
+        long nanos;
+    }
+
+    private static final class Worker {
+        final KarnaughSolver solver = new KarnaughSolver();
+        final Cover cover = new Cover();
+        final int[] maximalMinterms = new int[CUBES];
+        final int[] maximalLiterals = new int[CUBES];
+    }
+
+    private static final ThreadLocal<Worker> WORKERS = ThreadLocal.withInitial(Worker::new);
+
+    @Test
+    public void exactMode_isValidAndMinimal() {
+        Stats stats = run(KarnaughSolver.Mode.EXACT);
+        report(KarnaughSolver.Mode.EXACT, stats);
+        assertEquals(0, stats.invalid.get());
+        assertEquals(stats.solves.get(), stats.optimal.get());
+    }
+
+    @Test
+    public void bruteForce_findsKnownMinimums() {
+        Worker worker = new Worker();
+        assertEquals(0, bruteForceMinimum(worker, 0, 0));
+        assertEquals(TERM_COST, bruteForceMinimum(worker, 0xFFFF, 0));
+        // Una sola variable (los mintérminos impares)
+        assertEquals(TERM_COST + 1, bruteForceMinimum(worker, 0xAAAA, 0));
+        // Paridad de 4 variables: 8 términos de 4 literales, nada se agrupa
+        assertEquals(8 * TERM_COST + 32, bruteForceMinimum(worker, 0x6996, 0));
+        // Con el resto como indiferentes, el mintérmino 0 sale en un solo término vacío
+        assertEquals(TERM_COST, bruteForceMinimum(worker, 0x0001, 0xFFFE));
+    }
+
+    @Test
+    public void heuristicMode_isValid() {
+        Stats stats = run(KarnaughSolver.Mode.HEURISTIC);
+        report(KarnaughSolver.Mode.HEURISTIC, stats);
+        assertEquals(0, stats.invalid.get());
+    }
+
+    @Test
+    public void greedyMode_isValid() {
+        Stats stats = run(KarnaughSolver.Mode.GREEDY);
+        report(KarnaughSolver.Mode.GREEDY, stats);
+        assertEquals(0, stats.invalid.get());
+    }
+
+    private static Stats run(KarnaughSolver.Mode mode) {
+        Stats stats = new Stats();
+        // Pasada de rendimiento: solo el modo probado y la verificación de bits
+        long start = System.nanoTime();
+        forEachFunction((onSet, dcSet) -> {
+            Worker worker = WORKERS.get();
+            worker.solver.setMode(mode);
+            worker.solver.solve(MAP, onSet, dcSet, worker.cover);
+            stats.solves.incrementAndGet();
+            long covered = worker.cover.minterms();
+            if ((covered & onSet) != onSet || (covered & ~(onSet | dcSet)) != 0L) {
+                stats.invalid.incrementAndGet();
+            }
+        });
+        stats.nanos = System.nanoTime() - start;
+
+        // Pasada de optimalidad contra la búsqueda por fuerza bruta
+        forEachFunction((onSet, dcSet) -> {
+            Worker worker = WORKERS.get();
+            worker.solver.setMode(mode);
+            worker.solver.solve(MAP, onSet, dcSet, worker.cover);
+            int minimum = bruteForceMinimum(worker, (int) onSet, (int) dcSet);
+            if (cost(worker.cover) <= minimum) {
+                stats.optimal.incrementAndGet();
+            } else {
+                stats.extraLiterals.addAndGet(worker.cover.literalCount() - minimum % TERM_COST);
+            }
+        });
+        return stats;
+    }
+
+    // Costo mínimo de una suma de productos que cubre los unos sin tocar los ceros
+    private static int bruteForceMinimum(Worker worker, int onSet, int dcSet) {
+        int allowed = onSet | dcSet;
+        int count = 0;
+        for (int c = 0; c < CUBES; c++) {
+            if ((CUBE_MINTERMS[c] & ~allowed) != 0) {
+                continue;
+            }
+            boolean maximal = true;
+            for (int parent : CUBE_PARENTS[c]) {
+                if ((CUBE_MINTERMS[parent] & ~allowed) == 0) {
+                    maximal = false;
+                    break;
+                }
+            }
+            // Cambiar un cubo por uno máximo que lo contiene no sube el costo, así que basta con estos
+            if (maximal) {
+                worker.maximalMinterms[count] = CUBE_MINTERMS[c];
+                worker.maximalLiterals[count] = CUBE_LITERALS[c];
+                count++;
+            }
+        }
+        return cheapest(worker, count, onSet, 0, Integer.MAX_VALUE);
+    }
+
+    private static int cheapest(Worker worker, int count, int uncovered, int cost, int best) {
+        if (uncovered == 0) {
+            return Math.min(cost, best);
+        }
+        if (cost + TERM_COST >= best) {
+            return best;
+        }
+        // El primer uno sin cubrir queda en alguno de los términos: se prueba cada opción
+        int first = uncovered & -uncovered;
+        for (int i = 0; i < count; i++) {
+            if ((worker.maximalMinterms[i] & first) != 0) {
+                best = cheapest(worker, count, uncovered & ~worker.maximalMinterms[i],
+                        cost + TERM_COST + worker.maximalLiterals[i], best);
+            }
+        }
+        return best;
+    }
+
+    private interface FunctionConsumer {
+        void accept(long onSet, long dcSet);
+    }
+
+    private static void forEachFunction(FunctionConsumer consumer) {
+        IntStream.range(0, FUNCTIONS).parallel().forEach(onSet -> {
+            consumer.accept(onSet, 0L);
+            // Indiferentes pseudoaleatorios pero reproducibles, disjuntos de los unos
+            long seed = onSet * 0x9E3779B97F4A7C15L;
+            for (int s = 0; s < DONT_CARE_SAMPLES; s++) {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                consumer.accept(onSet, (seed >>> 48) & (seed >>> 32) & ~onSet & 0xFFFFL);
+            }
+        });
+    }
+
+    // Términos primero, literales después (mismo criterio que el modo exacto)
+    private static int cost(Cover cover) {
+        return cover.size() * TERM_COST + cover.literalCount();
+    }
+
+    private static void report(KarnaughSolver.Mode mode, Stats stats) {
+        long solves = stats.solves.get();
+        System.out.println(String.format(Locale.ROOT,
+                "%s: %d soluciones en %.1f ms, %.0f soluciones/s, óptimas %.2f %%, literales extra %d",
+                mode, solves, stats.nanos / 1e6, solves * 1e9 / stats.nanos,
+                100.0 * stats.optimal.get() / solves, stats.extraLiterals.get()));
+    }
+}
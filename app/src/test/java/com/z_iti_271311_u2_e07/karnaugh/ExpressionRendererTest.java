@@ -0,0 +1,55 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del renderizado de expresiones y de la representación por literales.
+ */
+public class ExpressionRendererTest {
+
+    private final ExpressionRenderer renderer = new ExpressionRenderer();
+    private final Cover cover = new Cover();
+
+    @Test
+    public void literalMasks_followVariableOrder() {
+        // A B' D con 4 variables: mintérmino 1 0 - 1
+        long cube = Cube.of(0b1001, 0b0010);
+        assertEquals(0b1011, Cube.careMask(cube, 4));
+        assertEquals(0b1001, Cube.polarity(cube, 4));
+        assertEquals("AB'D", renderer.renderTerm(cube, 4).toString());
+    }
+
+    @Test
+    public void bufferIsReusedAndGrows() {
+        cover.clear(20);
+        for (int m = 0; m < 8; m++) {
+            cover.add(Cube.minterm(m));
+        }
+        String first = renderer.render(cover).toString();
+        // 20 letras por término, un apóstrofo por cada variable en 0 (los mintérminos 0..7 suman 12 unos)
+        assertEquals(8 * 20 + (8 * 20 - 12) + 7 * 3, first.length());
+        assertTrue(first.startsWith("A'B'C'D'E'F'G'H'I'J'K'L'M'N'O'P'Q'R'S'T' + "));
+        cover.clear(2);
+        cover.add(Cube.of(0, 0b11));
+        assertEquals("1", renderer.render(cover).toString());
+        cover.clear(2);
+        assertEquals("0", renderer.render(cover).toString());
+        assertEquals('0', renderer.charAt(0));
+    }
+
+    @Test
+    public void grayTables_matchMapGeometry() {
+        KarnaughMap map = new KarnaughMap(4, 8);
+        for (int r = 0; r < map.rows(); r++) {
+            for (int c = 0; c < map.cols(); c++) {
+                int m = map.minterm(r, c);
+                assertEquals((GrayCode.encode(r) << 3) | GrayCode.encode(c), m);
+                assertEquals(r, map.rowOf(m));
+                assertEquals(c, map.colOf(m));
+            }
+        }
+        assertEquals(5, GrayCode.decode(GrayCode.encode(5)));
+    }
+}
@@ -0,0 +1,66 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la re-minimización incremental al editar una celda.
+ */
+public class IncrementalSolverTest {
+
+    private final KarnaughSolver solver = new KarnaughSolver();
+    private final IncrementalSolver incremental = new IncrementalSolver();
+    private final QuineMcCluskey reference = new QuineMcCluskey();
+    private final Cover cover = new Cover();
+
+    @Test
+    public void toggledCell_extendsGroup() {
+        KarnaughMap map = new KarnaughMap(4, 4);
+        // Columna 0 salvo la última celda: A'C'D' + B'C'D'
+        long onSet = (1L << 0) | (1L << 4) | (1L << 12);
+        solver.solve(map, onSet, 0L, cover);
+        incremental.reset(map, onSet, 0L, cover);
+        incremental.setCell(8, IncrementalSolver.ON);
+        incremental.copyTo(cover);
+        assertEquals("C'D'", cover.toExpression());
+        assertEquals(2, incremental.lastInvalidated());
+        assertEquals(IncrementalSolver.ON, incremental.cell(8));
+    }
+
+    @Test
+    public void randomEdits_keepPrimesAndCoverValid() {
+        Random random = new Random(7);
+        TruthTable table = new TruthTable();
+        for (int numVars = 2; numVars <= 6; numVars++) {
+            KarnaughMap map = KarnaughMap.forVariables(numVars);
+            long onSet = random.nextLong() & map.allMinterms();
+            long dcSet = random.nextLong() & random.nextLong() & ~onSet & map.allMinterms();
+            solver.solve(map, onSet, dcSet, cover);
+            incremental.reset(map, onSet, dcSet, cover);
+            for (int edit = 0; edit < 200; edit++) {
+                incremental.setCell(random.nextInt(map.cellCount()), random.nextInt(3));
+                long on = incremental.onSet();
+                long dc = incremental.dcSet();
+                incremental.copyTo(cover);
+                long covered = cover.minterms();
+                assertEquals(on, covered & on);
+                assertEquals(0L, covered & ~(on | dc));
+
+                // Mismos primos que generándolos desde cero
+                table.set(numVars, on, dc);
+                reference.generatePrimes(table);
+                assertEquals(reference.primeCount(), incremental.primeCount());
+                for (int p = 0; p < incremental.primeCount(); p++) {
+                    boolean found = false;
+                    for (int q = 0; q < reference.primeCount() && !found; q++) {
+                        found = reference.prime(q) == incremental.prime(p);
+                    }
+                    assertTrue(found);
+                }
+            }
+        }
+    }
+}
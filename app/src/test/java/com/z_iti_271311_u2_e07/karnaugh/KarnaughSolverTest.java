@@ -0,0 +1,157 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del motor de agrupamiento por máscaras de bits.
+ */
+public class KarnaughSolverTest {
+
+    private final KarnaughSolver solver = new KarnaughSolver();
+    private final Cover cover = new Cover();
+
+    @Test
+    public void map_followsGrayCodeOrder() {
+        KarnaughMap map = new KarnaughMap(4, 4);
+        assertEquals(0, map.minterm(0, 0));
+        assertEquals(2, map.minterm(0, 3));
+        assertEquals(10, map.minterm(3, 3));
+        assertEquals(3, map.rowOf(10));
+        assertEquals(3, map.colOf(10));
+    }
+
+    @Test
+    public void fullMap_isTautology() {
+        solver.solve(new KarnaughMap(4, 4), 0xFFFFL, 0L, cover);
+        assertEquals(1, cover.size());
+        assertEquals("1", cover.toExpression());
+    }
+
+    @Test
+    public void emptyMap_isZero() {
+        solver.solve(new KarnaughMap(2, 4), 0L, 0xFFL, cover);
+        assertTrue(cover.isEmpty());
+        assertEquals("0", cover.toExpression());
+    }
+
+    @Test
+    public void singleColumn_givesOneTerm() {
+        KarnaughMap map = new KarnaughMap(4, 4);
+        long onSet = map.rectangle(0, 1, 4, 1);
+        solver.solve(map, onSet, 0L, cover);
+        assertEquals(1, cover.size());
+        // Columna 01 => C'D
+        assertEquals("C'D", cover.toExpression());
+    }
+
+    @Test
+    public void dontCares_extendGroups() {
+        KarnaughMap map = new KarnaughMap(2, 2);
+        solver.solve(map, 1L << map.minterm(0, 0), 1L << map.minterm(0, 1), cover);
+        assertEquals("A'", cover.toExpression());
+    }
+
+    @Test
+    public void cover_matchesFunction() {
+        KarnaughMap map = new KarnaughMap(4, 4);
+        long onSet = 0b1011_0011_1100_0101L;
+        long dcSet = 0b0100_0000_0000_1000L;
+        solver.solve(map, onSet, dcSet, cover);
+        long covered = cover.minterms();
+        assertEquals(onSet, covered & onSet);
+        assertEquals(0L, covered & ~(onSet | dcSet));
+    }
+
+    @Test
+    public void greedy_groupsAcrossEdges() {
+        KarnaughMap map = new KarnaughMap(4, 4);
+        solver.setMode(KarnaughSolver.Mode.GREEDY);
+        // Primera y última columna (00 y 10): D'
+        long onSet = map.rectangle(0, 0, 4, 1) | map.rectangle(0, 3, 4, 1);
+        solver.solve(map, onSet, 0L, cover);
+        assertEquals("D'", cover.toExpression());
+    }
+
+    @Test
+    public void groupTable_listsWrappedGroups() {
+        GroupTable table = GroupTable.forMap(new KarnaughMap(4, 4));
+        // Con vuelta por los bordes aparecen todos los implicantes de 4 variables: 3^4
+        assertEquals(81, table.size());
+        assertSame(table, GroupTable.forMap(new KarnaughMap(4, 4)));
+        for (int g = 1; g < table.size(); g++) {
+            assertTrue(Long.bitCount(table.mask(g - 1)) >= Long.bitCount(table.mask(g)));
+        }
+    }
+
+    @Test
+    public void fiveVariables_groupAcrossMirroredSubMaps() {
+        KarnaughMap map = KarnaughMap.forVariables(5);
+        assertEquals(2, map.subMapCount());
+        // Columnas 1 y 6 (001 y 101) son simétricas respecto a la línea entre submapas: D'E
+        long onSet = map.rectangle(0, 1, 4, 1) | map.rectangle(0, 6, 4, 1);
+        for (KarnaughSolver.Mode mode : KarnaughSolver.Mode.values()) {
+            solver.setMode(mode);
+            solver.solve(map, onSet, 0L, cover);
+            assertEquals(mode.name(), "D'E", cover.toExpression());
+        }
+    }
+
+    @Test
+    public void sixVariables_groupTableIncludesMirroredGroups() {
+        KarnaughMap map = KarnaughMap.forVariables(6);
+        assertEquals(4, map.subMapCount());
+        assertEquals(729, GroupTable.forMap(map).size());
+        // Las esquinas de los cuatro submapas (filas y columnas 0, 3, 4 y 7): C'F'
+        long onSet = 0L;
+        for (int r : new int[]{0, 3, 4, 7}) {
+            for (int c : new int[]{0, 3, 4, 7}) {
+                onSet |= 1L << map.minterm(r, c);
+            }
+        }
+        solver.setMode(KarnaughSolver.Mode.GREEDY);
+        solver.solve(map, onSet, 0L, cover);
+        assertEquals("C'F'", cover.toExpression());
+    }
+
+    @Test
+    public void productOfSums_groupsTheZeros() {
+        KarnaughMap map = KarnaughMap.forVariables(3);
+        // f = A' + BC: los ceros 4, 5 y 6 dan (A' + B)(A' + C)
+        long onSet = 0b1000_1111L;
+        solver.solveProductOfSums(map, onSet, 0L, cover);
+        assertEquals(0b0111_0000L, cover.minterms());
+        String pos = new ExpressionRenderer().renderProductOfSums(cover).toString();
+        assertTrue(pos, pos.equals("(A' + B)(A' + C)") || pos.equals("(A' + C)(A' + B)"));
+        solver.solveProductOfSums(map, map.allMinterms(), 0L, cover);
+        assertEquals("1", new ExpressionRenderer().renderProductOfSums(cover).toString());
+    }
+
+    @Test
+    public void multiOutput_sharesImplicants() {
+        KarnaughMap map = KarnaughMap.forVariables(3);
+        Cover[] outputs = {new Cover(), new Cover()};
+        // Por separado: A'B'C' y A'B' + A'C (tres términos); juntas comparten A'B'C'
+        long[] onSets = {0b0000_0001L, 0b0000_1011L};
+        solver.solveOutputs(map, onSets, new long[2], outputs);
+        assertEquals(2, solver.multiOutput().sharedTermCount());
+        for (int o = 0; o < outputs.length; o++) {
+            assertEquals(onSets[o], outputs[o].minterms());
+        }
+        assertEquals("A'B'C'", outputs[0].toExpression());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void map_rejectsNonPowerOfTwo() {
+        new KarnaughMap(3, 4);
+    }
+
+    @Test
+    public void cube_fromMintermsRejectsNonCubes() {
+        assertEquals(-1L, Cube.fromMinterms(0b0110L));
+        long cube = Cube.fromMinterms(0b1100L);
+        assertEquals(2, Cube.value(cube));
+        assertEquals(1, Cube.mask(cube));
+    }
+}
@@ -0,0 +1,62 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la forma canónica NPN y de la minimización por clase.
+ */
+public class NpnCanonizerTest {
+
+    @Test
+    public void fourVariables_have222Classes() {
+        assertEquals(222, NpnCanonizer.classCount4());
+    }
+
+    @Test
+    public void equivalentFunctions_shareRepresentative() {
+        NpnCanonizer.Transform a = new NpnCanonizer.Transform();
+        NpnCanonizer.Transform b = new NpnCanonizer.Transform();
+        // A·B frente a C'·D (misma clase: permutar y negar entradas)
+        NpnCanonizer.canonicalize(4, 0xF000L, 0L, a);
+        NpnCanonizer.canonicalize(4, 0x0202L | 0x2020L, 0L, b);
+        assertEquals(a.canonicalOn(), b.canonicalOn());
+    }
+
+    @Test
+    public void mappedCover_equalsExactCover() {
+        QuineMcCluskey exact = new QuineMcCluskey();
+        NpnMinimizer npn = new NpnMinimizer(new QuineMcCluskey());
+        Cover expected = new Cover();
+        Cover actual = new Cover();
+        TruthTable table = new TruthTable();
+        for (int f = 0; f < 1 << 16; f += 7) {
+            table.set(4, f, 0L);
+            exact.minimize(table, expected);
+            npn.minimize(table, actual);
+            assertTrue(table.isCoveredExactlyBy(actual));
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.literalCount(), actual.literalCount());
+        }
+        assertTrue(npn.size() <= 222 * 2);
+    }
+
+    @Test
+    public void dontCares_andSixVariables_mapBack() {
+        Random random = new Random(11);
+        NpnMinimizer npn = new NpnMinimizer(new QuineMcCluskey());
+        Cover cover = new Cover();
+        TruthTable table = new TruthTable();
+        for (int i = 0; i < 200; i++) {
+            int numVars = 2 + random.nextInt(5);
+            long onSet = random.nextLong();
+            long dcSet = random.nextLong() & random.nextLong();
+            table.set(numVars, onSet, dcSet);
+            npn.minimize(table, cover);
+            assertTrue(table.isCoveredExactlyBy(cover));
+        }
+    }
+}
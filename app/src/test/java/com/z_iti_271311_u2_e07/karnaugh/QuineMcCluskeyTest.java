@@ -0,0 +1,66 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del minimizador exacto.
+ */
+public class QuineMcCluskeyTest {
+
+    private final QuineMcCluskey qm = new QuineMcCluskey();
+    private final Cover cover = new Cover();
+
+    @Test
+    public void cornersWrapAround() {
+        // Las cuatro esquinas de un mapa 4x4: B'D'
+        long onSet = (1L << 0) | (1L << 2) | (1L << 8) | (1L << 10);
+        qm.minimize(TruthTable.of(4, onSet, 0L), cover);
+        assertEquals("B'D'", cover.toExpression());
+    }
+
+    @Test
+    public void cyclicFunction_usesThreeTerms() {
+        // f = Σm(0,1,2,5,6,7): seis primos de dos mintérminos, cobertura mínima de tres
+        TruthTable table = TruthTable.of(3, 0b1110_0111L, 0L);
+        qm.minimize(table, cover);
+        assertEquals(3, cover.size());
+        assertEquals(6, cover.literalCount());
+        assertTrue(table.isCoveredExactlyBy(cover));
+        assertTrue(qm.isLastResultExact());
+    }
+
+    @Test
+    public void removesRedundantGroups() {
+        // Σm(1,3,5,7,14,15) 4 variables: el grupo BCD es redundante frente a A'D + ABC
+        long onSet = (1L << 1) | (1L << 3) | (1L << 5) | (1L << 7) | (1L << 14) | (1L << 15);
+        qm.minimize(TruthTable.of(4, onSet, 0L), cover);
+        assertEquals(2, cover.size());
+        assertEquals(5, cover.literalCount());
+    }
+
+    @Test
+    public void dontCaresAreNotRequired() {
+        qm.minimize(TruthTable.of(4, 0L, 0xFFFFL), cover);
+        assertTrue(cover.isEmpty());
+    }
+
+    @Test
+    public void tenVariables_coverIsCorrect() {
+        Random random = new Random(271311);
+        TruthTable table = new TruthTable(10);
+        for (int m = 0; m < table.size(); m++) {
+            int r = random.nextInt(10);
+            if (r < 3) {
+                table.setOn(m);
+            } else if (r == 3) {
+                table.setDontCare(m);
+            }
+        }
+        qm.minimize(table, cover);
+        assertTrue(table.isCoveredExactlyBy(cover));
+    }
+}
@@ -0,0 +1,63 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la caché de soluciones.
+ */
+public class SolutionCacheTest {
+
+    private final KarnaughSolver solver = new KarnaughSolver();
+    private final KarnaughMap map = new KarnaughMap(4, 4);
+    private final Cover cover = new Cover();
+
+    @Test
+    public void repeatedMap_isAHit() {
+        SolutionCache cache = new SolutionCache(4);
+        SolutionCache.Solution first = cache.getOrSolve(solver, map, 0x0F0FL, 0L, cover);
+        SolutionCache.Solution second = cache.getOrSolve(solver, map, 0x0F0FL, 0L, cover);
+        assertSame(first, second);
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(first.expression(), cover.toExpression());
+    }
+
+    @Test
+    public void leastRecentlyUsed_isEvicted() {
+        SolutionCache cache = new SolutionCache(2);
+        cache.getOrSolve(solver, map, 1L, 0L, cover);
+        cache.getOrSolve(solver, map, 2L, 0L, cover);
+        cache.getOrSolve(solver, map, 1L, 0L, cover); // 1 pasa a ser el más reciente
+        cache.getOrSolve(solver, map, 4L, 0L, cover); // se descarta 2
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(4, solver.getMode(), 1L, 0L));
+        assertNull(cache.get(4, solver.getMode(), 2L, 0L));
+    }
+
+    @Test
+    public void entries_surviveRoundTrip() throws IOException {
+        SolutionCache cache = new SolutionCache();
+        cache.getOrSolve(solver, map, 0x8421L, 0x0010L, cover);
+        String expression = cover.toExpression();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        cache.writeTo(bytes);
+        SolutionCache restored = new SolutionCache();
+        restored.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        SolutionCache.Solution solution = restored.get(4, solver.getMode(), 0x8421L, 0x0010L);
+        assertNotNull(solution);
+        assertEquals(expression, solution.expression());
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownFormat_isRejected() throws IOException {
+        new SolutionCache().readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+    }
+}
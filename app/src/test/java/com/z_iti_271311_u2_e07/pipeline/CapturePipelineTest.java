@@ -0,0 +1,134 @@
+package com.z_iti_271311_u2_e07.pipeline;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del pipeline de capturas: cancelación por capturas nuevas y tiempos por etapa.
+ */
+public class CapturePipelineTest {
+
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+    private CapturePipeline.Callback<String> callback(CountDownLatch done) {
+        return new CapturePipeline.Callback<String>() {
+            @Override
+            public void onResult(CaptureJob job, String result) {
+                delivered.add(result);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(CaptureJob job, Exception error) {
+                delivered.add("error: " + error.getMessage());
+                done.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void newerCapture_cancelsTheOneInFlight() throws Exception {
+        CapturePipeline pipeline = new CapturePipeline(Runnable::run);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        CaptureJob first = pipeline.submit(job -> job.stage(Stage.RECOGNIZE, () -> {
+            firstStarted.countDown();
+            Thread.sleep(10_000); // Se interrumpe al llegar la segunda captura
+            return "primera";
+        }), callback(done));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        CaptureJob second = pipeline.submit(job -> job.stage(Stage.SOLVE, () -> "segunda"), callback(done));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(first.isCancelled());
+        assertFalse(second.isCancelled());
+        assertEquals(Collections.singletonList("segunda"), delivered);
+        pipeline.shutdown(() -> { });
+    }
+
+    @Test
+    public void stages_recordWallTime() throws Exception {
+        CapturePipeline pipeline = new CapturePipeline(Runnable::run);
+        CountDownLatch done = new CountDownLatch(1);
+        CaptureJob job = pipeline.submit(j -> {
+            j.stage(Stage.DECODE, () -> {
+                Thread.sleep(20);
+                return null;
+            });
+            return j.stage(Stage.SOLVE, () -> "ok");
+        }, callback(done));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pipeline.shutdown(() -> { });
+        assertEquals(Collections.singletonList("ok"), delivered);
+        assertTrue(job.times().nanos(Stage.DECODE) >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(0L, job.times().nanos(Stage.PERSIST));
+        assertTrue(job.times().toString().startsWith("decode "));
+    }
+
+    @Test
+    public void failure_isDeliveredAsError() throws Exception {
+        CapturePipeline pipeline = new CapturePipeline(Runnable::run);
+        CountDownLatch done = new CountDownLatch(1);
+        pipeline.submit(job -> job.stage(Stage.GRID, () -> {
+            throw new IllegalArgumentException("mapa no válido");
+        }), callback(done));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pipeline.shutdown(() -> { });
+        assertEquals(Collections.singletonList("error: mapa no válido"), delivered);
+    }
+
+    @Test
+    public void prepare_runsBeforeTheFirstCapture() throws Exception {
+        CapturePipeline pipeline = new CapturePipeline(Runnable::run);
+        CountDownLatch done = new CountDownLatch(1);
+        pipeline.prepare(() -> {
+            try {
+                Thread.sleep(20); // La captura llega mientras se cargan los modelos
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.add("modelos");
+        });
+        pipeline.submit(job -> "captura", callback(done));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pipeline.shutdown(() -> { });
+        assertEquals(Arrays.asList("modelos", "captura"), delivered);
+    }
+
+    @Test
+    public void persist_neverRunsOnTheCaller() throws Exception {
+        CapturePipeline pipeline = new CapturePipeline(Runnable::run);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch saved = new CountDownLatch(5);
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // El primero bloquea el hilo de guardado, así que los demás se acumulan
+            pipeline.persist(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                threads.add(Thread.currentThread());
+                saved.countDown();
+            });
+        }
+        release.countDown();
+
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        pipeline.shutdown(() -> { });
+        assertFalse(threads.contains(caller));
+    }
+}
@@ -0,0 +1,40 @@
+// Benchmarks JMH de las etapas del mapa de Karnaugh que no dependen de Android.
+// Las etapas de OpenCV usan la distribución de escritorio (org.openpnp:opencv, con las bibliotecas nativas).
+// Ejecutar con: ./gradlew :benchmarks:jmh
+// El perfilador "gc" agrega gc.alloc.rate.norm (bytes reservados por operación).
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// Los paquetes medidos son Java puro dentro de :app; se compilan aquí para correr en la JVM
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/z_iti_271311_u2_e07/karnaugh/**",
+                "com/z_iti_271311_u2_e07/grid/**",
+                "com/z_iti_271311_u2_e07/vision/ImagePreprocessor.java",
+                "com/z_iti_271311_u2_e07/vision/GridLineDetector.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.opencv.desktop)
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
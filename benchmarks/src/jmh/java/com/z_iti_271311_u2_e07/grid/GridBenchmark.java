@@ -0,0 +1,53 @@
+package com.z_iti_271311_u2_e07.grid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de las etapas que convierten cajas de OCR en la cuadrícula del mapa.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GridBenchmark {
+
+    @Param({"2x2", "2x4", "4x4"})
+    public String shape;
+
+    @Param({"clean", "noisy", "rotated"})
+    public String layout;
+
+    private final GridReconstructor reconstructor = new GridReconstructor();
+    private OcrLayouts fixture;
+    private List<OcrBox> sortedByY;
+
+    @Setup
+    public void setup() {
+        fixture = OcrLayouts.create(shape, layout, 271311L);
+        sortedByY = new ArrayList<>(fixture.all());
+        sortedByY.sort(Comparator.comparingInt(OcrBox::centerY));
+    }
+
+    /** Solo el agrupamiento de filas. */
+    @Benchmark
+    public Object clusterRows() {
+        return reconstructor.clusterCenters(sortedByY, true);
+    }
+
+    /** Agrupamiento de filas y columnas más la asignación de cada caja a su celda. */
+    @Benchmark
+    public CellGrid reconstruct() {
+        return reconstructor.reconstruct(fixture.ones, fixture.dontCares);
+    }
+}
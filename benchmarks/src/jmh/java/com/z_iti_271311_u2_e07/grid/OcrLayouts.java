@@ -0,0 +1,68 @@
+package com.z_iti_271311_u2_e07.grid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Disposiciones sintéticas de cajas de OCR como las que entrega ML Kit para una foto de un mapa:
+ * una caja por celda con '1' o 'X' (las celdas en 0 no se reportan), con ruido de posición y
+ * tamaño, y opcionalmente con la hoja girada unos grados.
+ */
+final class OcrLayouts {
+
+    static final int CELL_PITCH = 140;
+    static final int GLYPH_WIDTH = 38;
+    static final int GLYPH_HEIGHT = 58;
+
+    final List<OcrBox> ones = new ArrayList<>();
+    final List<OcrBox> dontCares = new ArrayList<>();
+
+    private OcrLayouts() {
+    }
+
+    /**
+     * @param shape  "filas x columnas", p. ej. "4x4"
+     * @param layout "clean", "noisy" o "rotated"
+     * @param seed   semilla del contenido y del ruido
+     */
+    static OcrLayouts create(String shape, String layout, long seed) {
+        String[] parts = shape.split("x");
+        int rows = Integer.parseInt(parts[0]);
+        int cols = Integer.parseInt(parts[1]);
+        Random random = new Random(seed);
+        double jitter = layout.equals("clean") ? 0 : 9;
+        double angle = layout.equals("rotated") ? Math.toRadians(4.0) : 0;
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        int originX = 220;
+        int originY = 380;
+
+        OcrLayouts result = new OcrLayouts();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                // Asegura al menos un símbolo por fila y por columna para conservar la forma
+                boolean forced = i == j % rows;
+                int kind = forced ? CellGrid.ONE : random.nextInt(3);
+                if (kind == CellGrid.EMPTY) {
+                    continue;
+                }
+                double x = j * CELL_PITCH;
+                double y = i * CELL_PITCH;
+                double cx = originX + x * cos - y * sin + random.nextGaussian() * jitter;
+                double cy = originY + x * sin + y * cos + random.nextGaussian() * jitter;
+                int w = GLYPH_WIDTH + (int) (random.nextGaussian() * jitter / 2);
+                int h = GLYPH_HEIGHT + (int) (random.nextGaussian() * jitter / 2);
+                OcrBox box = new OcrBox((int) cx - w / 2, (int) cy - h / 2, (int) cx + w / 2, (int) cy + h / 2, kind);
+                (kind == CellGrid.ONE ? result.ones : result.dontCares).add(box);
+            }
+        }
+        return result;
+    }
+
+    List<OcrBox> all() {
+        List<OcrBox> all = new ArrayList<>(ones);
+        all.addAll(dontCares);
+        return all;
+    }
+}
@@ -0,0 +1,98 @@
+package com.z_iti_271311_u2_e07.karnaugh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia y memoria reservada por solución del agrupador y del renderizado de la expresión.
+ * Cada invocación toma la siguiente función de un conjunto fijo para no medir un caso único.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SolverBenchmark {
+
+    private static final int FUNCTIONS = 256;
+
+    @Param({"2x2", "2x4", "4x4"})
+    public String shape;
+
+    @Param({"GREEDY", "EXACT", "HEURISTIC"})
+    public String mode;
+
+    private final KarnaughSolver solver = new KarnaughSolver();
+    private final QuineMcCluskey exact = new QuineMcCluskey();
+    private final TruthTable table = new TruthTable();
+    private final Cover cover = new Cover();
+    private final ExpressionRenderer renderer = new ExpressionRenderer();
+    private KarnaughMap map;
+    private long[] onSets;
+    private long[] dcSets;
+    private int next;
+
+    @Setup
+    public void setup() {
+        String[] parts = shape.split("x");
+        map = new KarnaughMap(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        solver.setMode(KarnaughSolver.Mode.valueOf(mode));
+        long full = (1L << map.cellCount()) - 1;
+        Random random = new Random(42);
+        onSets = new long[FUNCTIONS];
+        dcSets = new long[FUNCTIONS];
+        for (int i = 0; i < FUNCTIONS; i++) {
+            onSets[i] = random.nextLong() & full;
+            dcSets[i] = random.nextLong() & random.nextLong() & full & ~onSets[i];
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (FUNCTIONS - 1);
+        return next;
+    }
+
+    /** Agrupador completo en el modo elegido (el modo exacto pasa por la caché NPN). */
+    @Benchmark
+    public Cover solve() {
+        int i = nextIndex();
+        solver.solve(map, onSets[i], dcSets[i], cover);
+        return cover;
+    }
+
+    /** Minimizador exacto sin caché, para ver el costo real de una función nueva. */
+    @Benchmark
+    public Cover exactWithoutCache() {
+        int i = nextIndex();
+        table.set(map.numVars(), onSets[i], dcSets[i]);
+        exact.minimize(table, cover);
+        return cover;
+    }
+
+    /** Mapeo de todas las celdas a mintérminos (código Gray). */
+    @Benchmark
+    public long grayMapping() {
+        long bits = 0L;
+        for (int r = 0; r < map.rows(); r++) {
+            for (int c = 0; c < map.cols(); c++) {
+                bits |= 1L << map.minterm(r, c);
+            }
+        }
+        return bits;
+    }
+
+    /** Renderizado de los términos y la expresión final. */
+    @Benchmark
+    public int renderExpression() {
+        int i = nextIndex();
+        solver.solve(map, onSets[i], dcSets[i], cover);
+        return renderer.render(cover).length();
+    }
+}
@@ -0,0 +1,73 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Random;
+
+/**
+ * Fotos sintéticas de un mapa de 4x4 dibujado en una hoja: líneas de la tabla, un '0', '1' o 'X'
+ * por celda, iluminación que se oscurece hacia un lado y, opcionalmente, la hoja girada unos grados.
+ * Se entregan en RGBA, como las deja {@code Utils.bitmapToMat}.
+ */
+final class MapImages {
+
+    static final int CELLS = 4;
+
+    private MapImages() {
+    }
+
+    /**
+     * @param size lado de la imagen, en píxeles
+     * @param skew giro de la hoja, en grados en sentido antihorario
+     * @param seed semilla del contenido de las celdas
+     */
+    static Mat create(int size, double skew, long seed) {
+        Mat gray = new Mat(size, size, CvType.CV_8UC1, new Scalar(235));
+        Random random = new Random(seed);
+        int pitch = size * 3 / 4 / CELLS;
+        int origin = (size - pitch * CELLS) / 2;
+        int thickness = Math.max(2, size / 400);
+        Scalar ink = new Scalar(40);
+        for (int k = 0; k <= CELLS; k++) {
+            int position = origin + k * pitch;
+            Imgproc.line(gray, new Point(origin, position), new Point(origin + CELLS * pitch, position), ink, thickness);
+            Imgproc.line(gray, new Point(position, origin), new Point(position, origin + CELLS * pitch), ink, thickness);
+        }
+        double fontScale = pitch / 45.0;
+        String[] symbols = {"0", "1", "X"};
+        for (int i = 0; i < CELLS; i++) {
+            for (int j = 0; j < CELLS; j++) {
+                Point corner = new Point(origin + j * pitch + pitch * 0.3, origin + (i + 1) * pitch - pitch * 0.25);
+                Imgproc.putText(gray, symbols[random.nextInt(symbols.length)], corner,
+                        Imgproc.FONT_HERSHEY_SIMPLEX, fontScale, ink, thickness + 1);
+            }
+        }
+
+        // Sombra: el brillo baja al 55 % en el borde derecho
+        byte[] pixels = new byte[size * size];
+        gray.get(0, 0, pixels);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double light = 1.0 - 0.45 * x / size;
+                pixels[y * size + x] = (byte) ((pixels[y * size + x] & 0xFF) * light);
+            }
+        }
+        gray.put(0, 0, pixels);
+
+        if (skew != 0) {
+            Mat transform = Imgproc.getRotationMatrix2D(new Point(size / 2.0, size / 2.0), skew, 1.0);
+            Imgproc.warpAffine(gray, gray, transform, new Size(size, size), Imgproc.INTER_LINEAR, Core.BORDER_REPLICATE);
+            transform.release();
+        }
+        Mat rgba = new Mat();
+        Imgproc.cvtColor(gray, rgba, Imgproc.COLOR_GRAY2RGBA);
+        gray.release();
+        return rgba;
+    }
+}
@@ -0,0 +1,104 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+import nu.pattern.OpenCV;
+
+/**
+ * Costo del preprocesamiento frente a la detección de la retícula con y sin él.
+ * <p>
+ * {@code gray}, {@code binary} y {@code deskewedBinary} miden la etapa sola; {@code latticeFromGray}
+ * es la detección sin preprocesar (como antes) y {@code latticeFromBinary} la detección sobre la
+ * salida binaria, ya sin inclinación. ML Kit no corre en la JVM, así que el OCR queda fuera de la
+ * medición. Con {@code skew} distinto de 0 las líneas de la hoja sin corregir se dispersan y sus
+ * grupos de posiciones se parten, que es lo que evita la corrección.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessBenchmark {
+
+    @Param({"1024", "2048"})
+    public int size;
+
+    @Param({"0", "3"})
+    public double skew;
+
+    // Antes de crear cualquier Mat: JMH instancia el estado antes de llamar a @Setup
+    static {
+        OpenCV.loadLocally();
+    }
+
+    private ImagePreprocessor preprocessor;
+    private ImagePreprocessor deskewer;
+    private GridLineDetector detector;
+    private Mat gray;
+    private Mat rgba;
+    private Mat binary;
+
+    @Setup
+    public void setup() {
+        preprocessor = new ImagePreprocessor();
+        deskewer = new ImagePreprocessor();
+        detector = new GridLineDetector();
+        gray = new Mat();
+        rgba = MapImages.create(size, skew, 271311L);
+        deskewer.setDeskew(true);
+        binary = deskewer.process(rgba, 0, ImagePreprocessor.Output.BINARY).clone();
+    }
+
+    @TearDown
+    public void tearDown() {
+        preprocessor.release();
+        deskewer.release();
+        detector.release();
+        gray.release();
+        rgba.release();
+        binary.release();
+    }
+
+    /** Grises con CLAHE, la entrada del OCR y de los motores de celdas. */
+    @Benchmark
+    public Mat gray() {
+        return preprocessor.process(rgba, 0, ImagePreprocessor.Output.GRAY);
+    }
+
+    /** Grises con CLAHE y umbral adaptativo, la entrada de la retícula. */
+    @Benchmark
+    public Mat binary() {
+        return preprocessor.process(rgba, 0, ImagePreprocessor.Output.BINARY);
+    }
+
+    /** Lo anterior más la estimación y corrección de la inclinación. */
+    @Benchmark
+    public Mat deskewedBinary() {
+        return deskewer.process(rgba, 0, ImagePreprocessor.Output.BINARY);
+    }
+
+    /** Retícula sin preprocesar: grises simples y umbral dentro del detector. */
+    @Benchmark
+    public GridLattice latticeFromGray() {
+        Imgproc.cvtColor(rgba, gray, Imgproc.COLOR_RGBA2GRAY);
+        return detector.detect(gray);
+    }
+
+    /** Retícula sobre la salida binaria del preprocesamiento. */
+    @Benchmark
+    public GridLattice latticeFromBinary() {
+        return detector.detectBinary(binary);
+    }
+}
@@ -22,3 +22,5 @@ dependencyResolutionManagement {
 rootProject.name = "Z_ITI-271311_U2_E07"
 include(":app")
 include(":sdk")
+include(":benchmarks")
+include(":tools")
@@ -0,0 +1,46 @@
+// Entrenamiento de los modelos de celdas que la app lee de assets.
+// Corren en la JVM con la distribución de escritorio de OpenCV (org.openpnp:opencv) y datos sintéticos con semilla fija.
+// Ejecutar con: ./gradlew :tools:trainCellClassifier o ./gradlew :tools:trainCellNet
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// Los extractores de características son los mismos de :app, para que el modelo vea lo que ve la app
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/z_iti_271311_u2_e07/karnaugh/**",
+                "com/z_iti_271311_u2_e07/grid/**",
+                "com/z_iti_271311_u2_e07/vision/Cell*.java",
+                "com/z_iti_271311_u2_e07/vision/DnnCellRecognizer.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.opencv.desktop)
+}
+
+tasks.register<JavaExec>("trainCellClassifier") {
+    group = "training"
+    description = "Entrena el SVM de CellClassifier y lo guarda en app/src/main/assets."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.z_iti_271311_u2_e07.vision.CellClassifierTrainer")
+    args(rootProject.file("app/src/main/assets/cell_classifier.yml").path)
+}
+
+tasks.register<JavaExec>("trainCellNet") {
+    group = "training"
+    description = "Entrena la red de DnnCellRecognizer y la guarda en app/src/main/assets."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.z_iti_271311_u2_e07.vision.CellNetTrainer")
+    args(rootProject.file("app/src/main/assets/cell_net.onnx").path)
+}
@@ -0,0 +1,104 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.TermCriteria;
+import org.opencv.ml.Ml;
+import org.opencv.ml.SVM;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import nu.pattern.OpenCV;
+
+/**
+ * Entrena el modelo de {@link CellClassifier} y lo guarda donde la app lo busca.
+ * <p>
+ * Las muestras salen de {@link CellSamples} y pasan por {@link CellClassifier#samples}, así que
+ * el modelo ve exactamente las mismas características que en la app. El modelo es un {@link SVM}
+ * lineal: OpenCV lo reduce a un vector por par de clases, así que el archivo es pequeño y la
+ * predicción tarda microsegundos por celda. Al final se carga el archivo guardado, como en la app,
+ * y se mide la exactitud en mapas que no se usaron para entrenar.
+ * <p>
+ * Uso: {@code CellClassifierTrainer <archivo .yml>}
+ */
+public final class CellClassifierTrainer {
+
+    private static final long TRAIN_SEED = 271311L;
+    private static final int TRAIN_MAPS = 800;
+    private static final double C = 0.1;
+
+    private CellClassifierTrainer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Uso: CellClassifierTrainer <archivo .yml>");
+        }
+        OpenCV.loadLocally();
+        File output = new File(args[0]);
+
+        CellClassifier extractor = new CellClassifier();
+        Mat samples = new Mat();
+        int[] labels = new int[TRAIN_MAPS * CellSamples.CELLS * CellSamples.CELLS];
+        Random random = new Random(TRAIN_SEED);
+        for (int m = 0; m < TRAIN_MAPS; m++) {
+            CellSamples map = CellSamples.create(random);
+            samples.push_back(extractor.samples(map.gray, map.lattice));
+            System.arraycopy(map.labels, 0, labels, m * map.labels.length, map.labels.length);
+            map.release();
+        }
+        extractor.release();
+        Mat responses = new Mat(labels.length, 1, CvType.CV_32S);
+        responses.put(0, 0, labels);
+
+        SVM svm = SVM.create();
+        svm.setType(SVM.C_SVC);
+        svm.setKernel(SVM.LINEAR);
+        svm.setC(C);
+        svm.setTermCriteria(new TermCriteria(TermCriteria.MAX_ITER + TermCriteria.EPS, 10_000, 1e-6));
+        long start = System.nanoTime();
+        svm.train(samples, Ml.ROW_SAMPLE, responses);
+        System.out.println(String.format(Locale.ROOT, "%d muestras entrenadas en %.1f s",
+                labels.length, (System.nanoTime() - start) / 1e9));
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("No se pudo crear " + parent);
+        }
+        svm.save(output.getPath());
+        dropUncompressedVectors(output);
+        samples.release();
+        responses.release();
+
+        CellClassifier classifier = new CellClassifier();
+        if (!classifier.load(output.getPath())) {
+            throw new IllegalStateException("El modelo guardado no se pudo cargar");
+        }
+        System.out.println(output + " (" + output.length() + " bytes): " + CellSamples.validate(classifier));
+        classifier.release();
+    }
+
+    // OpenCV guarda además los vectores de soporte sin comprimir (solo para
+    // getUncompressedSupportVectors): la predicción no los lee y son casi todo el archivo
+    private static void dropUncompressedVectors(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        List<String> kept = new ArrayList<>(lines.size());
+        boolean skipping = false;
+        for (String line : lines) {
+            // Las claves del modelo van con tres espacios; sus valores, más adentro
+            if (line.matches("   \\S.*")) {
+                skipping = line.startsWith("   uncompressed_");
+            }
+            if (!skipping) {
+                kept.add(line);
+            }
+        }
+        Files.write(file.toPath(), kept, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,260 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.CellGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * La red de {@link DnnCellRecognizer}, entrenada en Java puro y exportada a ONNX.
+ * <p>
+ * Conv 5x5 de {@link #FILTERS} filtros, ReLU, MaxPool 2x2, una capa densa de {@link #HIDDEN}
+ * neuronas con ReLU y una capa densa de salida con una puntuación por clase de {@link CellGrid}
+ * (sin softmax: el reconocedor solo toma la mayor). Se entrena con entropía cruzada y descenso de
+ * gradiente por lotes con momento; los pesos iniciales salen de un {@link Random} con semilla.
+ * Cada muestra es un recorte de {@link #SIZE}x{@link #SIZE} por filas, como en el blob del
+ * reconocedor.
+ */
+final class CellNet {
+
+    static final int SIZE = DnnCellRecognizer.INPUT_SIZE;
+    static final int CLASSES = 3;
+
+    private static final int KERNEL = 5;
+    private static final int FILTERS = 8;
+    private static final int CONV = SIZE - KERNEL + 1;
+    private static final int POOLED = CONV / 2;
+    private static final int FLAT = FILTERS * POOLED * POOLED;
+    private static final int HIDDEN = 32;
+
+    // Pesos con la forma de ONNX: Conv [FILTERS, 1, KERNEL, KERNEL]; Gemm con transB, [salidas, entradas]
+    private final float[] convWeight = new float[FILTERS * KERNEL * KERNEL];
+    private final float[] convBias = new float[FILTERS];
+    private final float[] hiddenWeight = new float[HIDDEN * FLAT];
+    private final float[] hiddenBias = new float[HIDDEN];
+    private final float[] outputWeight = new float[CLASSES * HIDDEN];
+    private final float[] outputBias = new float[CLASSES];
+    private final float[][] parameters = {convWeight, convBias, hiddenWeight, hiddenBias, outputWeight, outputBias};
+    private final float[][] gradients = new float[parameters.length][];
+    private final float[][] velocities = new float[parameters.length][];
+
+    // Activaciones de la última muestra, para la retropropagación
+    private final float[] conv = new float[FILTERS * CONV * CONV];
+    private final float[] pooled = new float[FLAT];
+    private final int[] poolSource = new int[FLAT];
+    private final float[] hidden = new float[HIDDEN];
+    private final float[] scores = new float[CLASSES];
+    private final float[] pooledDelta = new float[FLAT];
+    private final float[] hiddenDelta = new float[HIDDEN];
+
+    CellNet(Random random) {
+        // He: varianza 2 / entradas por neurona, para que ReLU no apague ni sature las capas
+        initialize(convWeight, KERNEL * KERNEL, random);
+        initialize(hiddenWeight, FLAT, random);
+        initialize(outputWeight, HIDDEN, random);
+        for (int p = 0; p < parameters.length; p++) {
+            gradients[p] = new float[parameters[p].length];
+            velocities[p] = new float[parameters[p].length];
+        }
+    }
+
+    /**
+     * Una pasada por todas las muestras en orden aleatorio.
+     *
+     * @param inputs  muestras seguidas, {@code SIZE * SIZE} valores cada una
+     * @param labels  clase de cada muestra
+     * @return la entropía cruzada media de la época
+     */
+    double train(float[] inputs, int[] labels, int batch, float rate, float momentum, Random random) {
+        int[] order = new int[labels.length];
+        for (int n = 0; n < order.length; n++) {
+            order[n] = n;
+        }
+        for (int n = order.length - 1; n > 0; n--) {
+            int k = random.nextInt(n + 1);
+            int swap = order[n];
+            order[n] = order[k];
+            order[k] = swap;
+        }
+        double loss = 0;
+        for (int start = 0; start < order.length; start += batch) {
+            int end = Math.min(order.length, start + batch);
+            for (float[] gradient : gradients) {
+                Arrays.fill(gradient, 0f);
+            }
+            for (int n = start; n < end; n++) {
+                loss += backward(inputs, order[n] * SIZE * SIZE, labels[order[n]]);
+            }
+            float step = rate / (end - start);
+            for (int p = 0; p < parameters.length; p++) {
+                float[] parameter = parameters[p];
+                float[] gradient = gradients[p];
+                float[] velocity = velocities[p];
+                for (int k = 0; k < parameter.length; k++) {
+                    velocity[k] = momentum * velocity[k] - step * gradient[k];
+                    parameter[k] += velocity[k];
+                }
+            }
+        }
+        return loss / labels.length;
+    }
+
+    /** Clase con la mayor puntuación para la muestra que empieza en {@code offset}. */
+    int predict(float[] inputs, int offset) {
+        forward(inputs, offset);
+        int best = 0;
+        for (int c = 1; c < CLASSES; c++) {
+            if (scores[c] > scores[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** Guarda la red como el grafo que espera {@link DnnCellRecognizer}: entrada N×1×SIZE×SIZE, salida N×CLASSES. */
+    void save(File file) throws IOException {
+        OnnxWriter onnx = new OnnxWriter("cell_net");
+        onnx.input("input", -1, 1, SIZE, SIZE);
+        onnx.initializer("conv.weight", convWeight, FILTERS, 1, KERNEL, KERNEL);
+        onnx.initializer("conv.bias", convBias, FILTERS);
+        onnx.initializer("hidden.weight", hiddenWeight, HIDDEN, FLAT);
+        onnx.initializer("hidden.bias", hiddenBias, HIDDEN);
+        onnx.initializer("output.weight", outputWeight, CLASSES, HIDDEN);
+        onnx.initializer("output.bias", outputBias, CLASSES);
+        onnx.node("Conv", new String[]{"input", "conv.weight", "conv.bias"}, "conv",
+                OnnxWriter.integers("kernel_shape", KERNEL, KERNEL));
+        onnx.node("Relu", new String[]{"conv"}, "conv.relu");
+        onnx.node("MaxPool", new String[]{"conv.relu"}, "pool",
+                OnnxWriter.integers("kernel_shape", 2, 2), OnnxWriter.integers("strides", 2, 2));
+        onnx.node("Flatten", new String[]{"pool"}, "flat", OnnxWriter.integer("axis", 1));
+        onnx.node("Gemm", new String[]{"flat", "hidden.weight", "hidden.bias"}, "hidden",
+                OnnxWriter.integer("transB", 1));
+        onnx.node("Relu", new String[]{"hidden"}, "hidden.relu");
+        onnx.node("Gemm", new String[]{"hidden.relu", "output.weight", "output.bias"}, "scores",
+                OnnxWriter.integer("transB", 1));
+        onnx.output("scores", -1, CLASSES);
+        onnx.write(file);
+    }
+
+    private void forward(float[] inputs, int offset) {
+        for (int f = 0; f < FILTERS; f++) {
+            for (int y = 0; y < CONV; y++) {
+                for (int x = 0; x < CONV; x++) {
+                    float sum = convBias[f];
+                    for (int ky = 0; ky < KERNEL; ky++) {
+                        int row = offset + (y + ky) * SIZE + x;
+                        int weight = (f * KERNEL + ky) * KERNEL;
+                        for (int kx = 0; kx < KERNEL; kx++) {
+                            sum += convWeight[weight + kx] * inputs[row + kx];
+                        }
+                    }
+                    conv[(f * CONV + y) * CONV + x] = Math.max(0f, sum);
+                }
+            }
+        }
+        // Mismo orden que Flatten de ONNX: filtro, fila, columna
+        for (int f = 0; f < FILTERS; f++) {
+            for (int y = 0; y < POOLED; y++) {
+                for (int x = 0; x < POOLED; x++) {
+                    int k = (f * POOLED + y) * POOLED + x;
+                    int source = (f * CONV + 2 * y) * CONV + 2 * x;
+                    int[] window = {source, source + 1, source + CONV, source + CONV + 1};
+                    int best = window[0];
+                    for (int w = 1; w < window.length; w++) {
+                        if (conv[window[w]] > conv[best]) {
+                            best = window[w];
+                        }
+                    }
+                    pooled[k] = conv[best];
+                    poolSource[k] = best;
+                }
+            }
+        }
+        for (int h = 0; h < HIDDEN; h++) {
+            float sum = hiddenBias[h];
+            int row = h * FLAT;
+            for (int k = 0; k < FLAT; k++) {
+                sum += hiddenWeight[row + k] * pooled[k];
+            }
+            hidden[h] = Math.max(0f, sum);
+        }
+        for (int c = 0; c < CLASSES; c++) {
+            float sum = outputBias[c];
+            for (int h = 0; h < HIDDEN; h++) {
+                sum += outputWeight[c * HIDDEN + h] * hidden[h];
+            }
+            scores[c] = sum;
+        }
+    }
+
+    // Acumula los gradientes de una muestra y devuelve su entropía cruzada
+    private double backward(float[] inputs, int offset, int label) {
+        forward(inputs, offset);
+        float max = Math.max(scores[0], Math.max(scores[1], scores[2]));
+        double total = 0;
+        double[] softmax = new double[CLASSES];
+        for (int c = 0; c < CLASSES; c++) {
+            softmax[c] = Math.exp(scores[c] - max);
+            total += softmax[c];
+        }
+        float[] outputGradient = gradients[5];
+        float[] outputWeightGradient = gradients[4];
+        Arrays.fill(hiddenDelta, 0f);
+        for (int c = 0; c < CLASSES; c++) {
+            float delta = (float) (softmax[c] / total) - (c == label ? 1f : 0f);
+            outputGradient[c] += delta;
+            for (int h = 0; h < HIDDEN; h++) {
+                outputWeightGradient[c * HIDDEN + h] += delta * hidden[h];
+                hiddenDelta[h] += delta * outputWeight[c * HIDDEN + h];
+            }
+        }
+
+        float[] hiddenGradient = gradients[3];
+        float[] hiddenWeightGradient = gradients[2];
+        Arrays.fill(pooledDelta, 0f);
+        for (int h = 0; h < HIDDEN; h++) {
+            if (hidden[h] <= 0f) {
+                continue;
+            }
+            float delta = hiddenDelta[h];
+            hiddenGradient[h] += delta;
+            int row = h * FLAT;
+            for (int k = 0; k < FLAT; k++) {
+                hiddenWeightGradient[row + k] += delta * pooled[k];
+                pooledDelta[k] += delta * hiddenWeight[row + k];
+            }
+        }
+
+        // El gradiente del MaxPool va solo a la posición ganadora, y ReLU lo corta si era 0
+        float[] convGradient = gradients[1];
+        float[] convWeightGradient = gradients[0];
+        for (int k = 0; k < FLAT; k++) {
+            float delta = pooledDelta[k];
+            if (delta == 0f || pooled[k] <= 0f) {
+                continue;
+            }
+            int source = poolSource[k];
+            int f = source / (CONV * CONV);
+            int y = source / CONV % CONV;
+            int x = source % CONV;
+            convGradient[f] += delta;
+            for (int ky = 0; ky < KERNEL; ky++) {
+                int row = offset + (y + ky) * SIZE + x;
+                int weight = (f * KERNEL + ky) * KERNEL;
+                for (int kx = 0; kx < KERNEL; kx++) {
+                    convWeightGradient[weight + kx] += delta * inputs[row + kx];
+                }
+            }
+        }
+        return Math.log(total) - (scores[label] - max);
+    }
+
+    private static void initialize(float[] weights, int fanIn, Random random) {
+        double scale = Math.sqrt(2.0 / fanIn);
+        for (int k = 0; k < weights.length; k++) {
+            weights[k] = (float) (random.nextGaussian() * scale);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+import nu.pattern.OpenCV;
+
+/**
+ * Entrena la red de {@link DnnCellRecognizer} ({@link CellNet}) y la guarda en ONNX donde la app
+ * la busca.
+ * <p>
+ * Las muestras salen de {@link CellSamples} y pasan por {@link DnnCellRecognizer#blob}, así que la
+ * red ve exactamente la entrada que arma la app. Al final se carga el archivo guardado con
+ * {@link DnnCellRecognizer#load}, como en la app, y se mide la exactitud con el módulo dnn de
+ * OpenCV en mapas que no se usaron para entrenar.
+ * <p>
+ * Uso: {@code CellNetTrainer <archivo .onnx>}
+ */
+public final class CellNetTrainer {
+
+    private static final long TRAIN_SEED = 271311L;
+    private static final int TRAIN_MAPS = 1500;
+    private static final int EPOCHS = 8;
+    private static final int BATCH = 32;
+    private static final float RATE = 0.01f;
+    private static final float MOMENTUM = 0.9f;
+
+    private CellNetTrainer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Uso: CellNetTrainer <archivo .onnx>");
+        }
+        OpenCV.loadLocally();
+        File output = new File(args[0]);
+
+        int cells = CellSamples.CELLS * CellSamples.CELLS;
+        int pixels = CellNet.SIZE * CellNet.SIZE;
+        float[] inputs = new float[TRAIN_MAPS * cells * pixels];
+        int[] labels = new int[TRAIN_MAPS * cells];
+        float[] crops = new float[cells * pixels];
+        DnnCellRecognizer extractor = new DnnCellRecognizer();
+        Random random = new Random(TRAIN_SEED);
+        for (int m = 0; m < TRAIN_MAPS; m++) {
+            CellSamples map = CellSamples.create(random);
+            // El blob es continuo: N×1×SIZE×SIZE se lee como N filas de SIZE² valores
+            Mat rows = extractor.blob(map.gray, map.lattice).reshape(1, cells);
+            rows.get(0, 0, crops);
+            rows.release();
+            System.arraycopy(crops, 0, inputs, m * cells * pixels, crops.length);
+            System.arraycopy(map.labels, 0, labels, m * cells, cells);
+            map.release();
+        }
+        extractor.release();
+
+        CellNet net = new CellNet(random);
+        long start = System.nanoTime();
+        for (int epoch = 1; epoch <= EPOCHS; epoch++) {
+            // La tasa baja a la mitad en la segunda mitad del entrenamiento para asentar los pesos
+            float rate = epoch > EPOCHS / 2 ? RATE / 2 : RATE;
+            double loss = net.train(inputs, labels, BATCH, rate, MOMENTUM, random);
+            System.out.println(String.format(Locale.ROOT, "época %d: pérdida %.4f", epoch, loss));
+        }
+        int correct = 0;
+        for (int n = 0; n < labels.length; n++) {
+            if (net.predict(inputs, n * pixels) == labels[n]) {
+                correct++;
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "%d muestras entrenadas en %.1f s, exactitud en entrenamiento %.2f %%",
+                labels.length, (System.nanoTime() - start) / 1e9, 100.0 * correct / labels.length));
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("No se pudo crear " + parent);
+        }
+        net.save(output);
+
+        DnnCellRecognizer recognizer = new DnnCellRecognizer();
+        if (!recognizer.load(output.getPath())) {
+            throw new IllegalStateException("La red guardada no se pudo cargar");
+        }
+        System.out.println(output + " (" + output.length() + " bytes): " + CellSamples.validate(recognizer));
+        recognizer.release();
+    }
+}
@@ -0,0 +1,195 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import com.z_iti_271311_u2_e07.grid.CellGrid;
+import com.z_iti_271311_u2_e07.grid.GridLattice;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Mapas sintéticos de 4x4 ya enderezados, como los deja {@code MapLocalizer}, con la etiqueta de
+ * cada celda conocida; de aquí salen los datos de entrenamiento de los motores de celdas.
+ * <p>
+ * Cada celda lleva un '0', '1', 'X' o '*' (o nada) escrito con una fuente Hershey o trazado a mano
+ * alzada con líneas y elipses, con tamaño, grosor, posición e inclinación al azar. La hoja varía en
+ * tinta y papel, tiene una sombra lineal, ruido y a veces desenfoque, y la retícula se desvía unos
+ * píxeles de las líneas dibujadas, como la que estima {@code GridLineDetector}. Todo sale de un
+ * {@link Random} con semilla, así que el mismo recorrido da los mismos mapas.
+ */
+final class CellSamples {
+
+    static final int CELLS = 4;
+
+    private static final long VALIDATION_SEED = 20_271311L;
+    private static final int VALIDATION_MAPS = 200;
+
+    private static final int[] FONTS = {
+            Imgproc.FONT_HERSHEY_SIMPLEX, Imgproc.FONT_HERSHEY_PLAIN, Imgproc.FONT_HERSHEY_DUPLEX,
+            Imgproc.FONT_HERSHEY_COMPLEX, Imgproc.FONT_HERSHEY_TRIPLEX,
+            Imgproc.FONT_HERSHEY_SCRIPT_SIMPLEX, Imgproc.FONT_HERSHEY_SCRIPT_COMPLEX
+    };
+
+    final Mat gray;
+    final GridLattice lattice;
+    /** Etiqueta de cada celda por filas, con los valores de {@link CellGrid}. */
+    final int[] labels = new int[CELLS * CELLS];
+
+    private CellSamples(Mat gray, GridLattice lattice) {
+        this.gray = gray;
+        this.lattice = lattice;
+    }
+
+    static CellSamples create(Random random) {
+        int pitch = 32 + random.nextInt(129);
+        int origin = pitch / 3;
+        int size = 2 * origin + CELLS * pitch;
+        int paper = 170 + random.nextInt(81);
+        Scalar ink = new Scalar(10 + random.nextInt(91));
+        Mat gray = new Mat(size, size, CvType.CV_8UC1, new Scalar(paper));
+
+        int lineThickness = 1 + random.nextInt(Math.max(1, pitch / 30));
+        int[] rowEdges = new int[CELLS + 1];
+        int[] colEdges = new int[CELLS + 1];
+        int jitter = Math.max(1, pitch / 40);
+        for (int k = 0; k <= CELLS; k++) {
+            int position = origin + k * pitch;
+            Imgproc.line(gray, new Point(origin, position), new Point(origin + CELLS * pitch, position), ink, lineThickness);
+            Imgproc.line(gray, new Point(position, origin), new Point(position, origin + CELLS * pitch), ink, lineThickness);
+            rowEdges[k] = position + random.nextInt(2 * jitter + 1) - jitter;
+            colEdges[k] = position + random.nextInt(2 * jitter + 1) - jitter;
+        }
+
+        CellSamples samples = new CellSamples(gray, new GridLattice(rowEdges, colEdges));
+        for (int i = 0; i < CELLS; i++) {
+            for (int j = 0; j < CELLS; j++) {
+                samples.labels[i * CELLS + j] = drawCell(gray, random, origin + j * pitch, origin + i * pitch, pitch, ink);
+            }
+        }
+        degrade(gray, random);
+        return samples;
+    }
+
+    void release() {
+        gray.release();
+    }
+
+    /**
+     * Exactitud del motor en mapas de validación, por clase real; los mapas son siempre los mismos
+     * y no salen de la semilla de entrenamiento.
+     */
+    static String validate(CellRecognizer recognizer) {
+        int[] total = new int[3];
+        int[] correct = new int[3];
+        Random random = new Random(VALIDATION_SEED);
+        for (int m = 0; m < VALIDATION_MAPS; m++) {
+            CellSamples map = create(random);
+            CellGrid grid = recognizer.classify(map.gray, map.lattice);
+            for (int i = 0; i < CELLS; i++) {
+                for (int j = 0; j < CELLS; j++) {
+                    int expected = map.labels[i * CELLS + j];
+                    total[expected]++;
+                    if (grid.value(i, j) == expected) {
+                        correct[expected]++;
+                    }
+                }
+            }
+            map.release();
+        }
+        int cells = total[0] + total[1] + total[2];
+        return String.format(Locale.ROOT, "exactitud %.2f %% en %d celdas (vacía/0 %.2f %%, 1 %.2f %%, X %.2f %%)",
+                100.0 * (correct[0] + correct[1] + correct[2]) / cells, cells,
+                100.0 * correct[0] / total[0], 100.0 * correct[1] / total[1], 100.0 * correct[2] / total[2]);
+    }
+
+    // Dibuja un símbolo al azar en la celda y devuelve su etiqueta
+    private static int drawCell(Mat gray, Random random, int left, int top, int pitch, Scalar ink) {
+        double draw = random.nextDouble();
+        char symbol = draw < 0.10 ? ' ' : draw < 0.40 ? '0' : draw < 0.70 ? '1' : draw < 0.94 ? 'X' : '*';
+        if (symbol == ' ') {
+            return CellGrid.EMPTY;
+        }
+        int thickness = Math.max(1, (int) Math.round(pitch * (0.03 + 0.06 * random.nextDouble())));
+        double height = pitch * (0.35 + 0.35 * random.nextDouble());
+        double cx = left + pitch * (0.5 + 0.16 * (random.nextDouble() - 0.5));
+        double cy = top + pitch * (0.5 + 0.16 * (random.nextDouble() - 0.5));
+        if (random.nextBoolean()) {
+            drawText(gray, random, symbol, cx, cy, height, thickness, ink);
+        } else {
+            drawStrokes(gray, random, symbol, cx, cy, height, thickness, ink);
+        }
+        return symbol == '1' ? CellGrid.ONE : symbol == '0' ? CellGrid.EMPTY : CellGrid.DONT_CARE;
+    }
+
+    private static void drawText(Mat gray, Random random, char symbol, double cx, double cy, double height,
+                                 int thickness, Scalar ink) {
+        int font = FONTS[random.nextInt(FONTS.length)] | (random.nextInt(4) == 0 ? Imgproc.FONT_ITALIC : 0);
+        String text = symbol == 'X' && random.nextInt(3) == 0 ? "x" : String.valueOf(symbol);
+        int[] baseline = new int[1];
+        Size unit = Imgproc.getTextSize(text, font, 1.0, thickness, baseline);
+        double scale = height / Math.max(1, unit.height);
+        Size box = Imgproc.getTextSize(text, font, scale, thickness, baseline);
+        Imgproc.putText(gray, text, new Point(cx - box.width / 2, cy + box.height / 2), font, scale, ink, thickness);
+    }
+
+    // Trazos a mano alzada: elipse para el '0', palo con o sin pico para el '1', aspas para 'X' y '*'
+    private static void drawStrokes(Mat gray, Random random, char symbol, double cx, double cy, double height,
+                                    int thickness, Scalar ink) {
+        double half = height / 2;
+        double tilt = Math.toRadians(20 * (random.nextDouble() - 0.5));
+        switch (symbol) {
+            case '0':
+                Imgproc.ellipse(gray, new Point(cx, cy), new Size(half * (0.5 + 0.3 * random.nextDouble()), half),
+                        Math.toDegrees(tilt), 0, 360, ink, thickness);
+                break;
+            case '1': {
+                Point topEnd = new Point(cx + half * Math.sin(tilt), cy - half);
+                Imgproc.line(gray, topEnd, new Point(cx - half * Math.sin(tilt), cy + half), ink, thickness);
+                if (random.nextBoolean()) {
+                    Imgproc.line(gray, topEnd, new Point(topEnd.x - half * 0.45, topEnd.y + half * 0.4), ink, thickness);
+                }
+                break;
+            }
+            default: {
+                int arms = symbol == 'X' ? 2 : 3;
+                double start = symbol == 'X' ? Math.PI / 4 : Math.PI / 2;
+                for (int a = 0; a < arms; a++) {
+                    double angle = start + tilt + a * Math.PI / arms + 0.2 * (random.nextDouble() - 0.5);
+                    double dx = half * Math.cos(angle);
+                    double dy = half * Math.sin(angle);
+                    Imgproc.line(gray, new Point(cx - dx, cy - dy), new Point(cx + dx, cy + dy), ink, thickness);
+                }
+                break;
+            }
+        }
+    }
+
+    // Sombra lineal en una dirección al azar, ruido gaussiano y a veces desenfoque
+    private static void degrade(Mat gray, Random random) {
+        int size = gray.rows();
+        byte[] pixels = new byte[size * size];
+        gray.get(0, 0, pixels);
+        double angle = random.nextDouble() * 2 * Math.PI;
+        double gx = Math.cos(angle) / size;
+        double gy = Math.sin(angle) / size;
+        double depth = 0.4 * random.nextDouble();
+        double noise = 8 * random.nextDouble();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double light = 1.0 - depth * (0.5 + 0.5 * ((x - size / 2.0) * gx + (y - size / 2.0) * gy));
+                double value = (pixels[y * size + x] & 0xFF) * light + noise * random.nextGaussian();
+                pixels[y * size + x] = (byte) Math.max(0, Math.min(255, (int) Math.round(value)));
+            }
+        }
+        gray.put(0, 0, pixels);
+        if (random.nextInt(3) == 0) {
+            Imgproc.GaussianBlur(gray, gray, new Size(3, 3), 0);
+        }
+    }
+}
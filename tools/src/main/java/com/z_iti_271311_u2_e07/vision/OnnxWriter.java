@@ -0,0 +1,173 @@
+package com.z_iti_271311_u2_e07.vision;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escribe un modelo ONNX con un solo grafo de tensores float, sin depender de protobuf.
+ * <p>
+ * ONNX es un mensaje protobuf ({@code onnx.proto}); aquí se codifican a mano solo los campos que
+ * usa una red secuencial pequeña: entradas y salidas con forma, pesos como {@code raw_data} y nodos
+ * con atributos enteros. La primera dimensión negativa de una forma es el lote, con nombre
+ * {@code N}, para que la red acepte cualquier número de celdas.
+ */
+final class OnnxWriter {
+
+    private static final int IR_VERSION = 6;
+    private static final int OPSET = 11;
+    private static final int FLOAT = 1; // TensorProto.DataType.FLOAT
+    private static final int ATTRIBUTE_INT = 2; // AttributeProto.AttributeType
+    private static final int ATTRIBUTE_INTS = 7;
+
+    private final Message graph = new Message();
+
+    OnnxWriter(String name) {
+        graph.string(2, name);
+    }
+
+    void input(String name, int... dims) {
+        graph.message(11, valueInfo(name, dims));
+    }
+
+    void output(String name, int... dims) {
+        graph.message(12, valueInfo(name, dims));
+    }
+
+    /** Pesos constantes del grafo, en el orden de filas de {@code dims}. */
+    void initializer(String name, float[] values, int... dims) {
+        Message tensor = new Message();
+        for (int dim : dims) {
+            tensor.varint(1, dim);
+        }
+        tensor.varint(2, FLOAT);
+        tensor.string(8, name);
+        ByteBuffer data = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        data.asFloatBuffer().put(values);
+        tensor.bytes(9, data.array());
+        graph.message(5, tensor);
+    }
+
+    /** Agrega un nodo; se nombra como su salida. */
+    void node(String op, String[] inputs, String output, Attribute... attributes) {
+        Message node = new Message();
+        for (String input : inputs) {
+            node.string(1, input);
+        }
+        node.string(2, output);
+        node.string(3, output);
+        node.string(4, op);
+        for (Attribute attribute : attributes) {
+            node.message(5, attribute.message);
+        }
+        graph.message(1, node);
+    }
+
+    static Attribute integer(String name, long value) {
+        Message attribute = new Message();
+        attribute.string(1, name);
+        attribute.varint(3, value);
+        attribute.varint(20, ATTRIBUTE_INT);
+        return new Attribute(attribute);
+    }
+
+    static Attribute integers(String name, long... values) {
+        Message attribute = new Message();
+        attribute.string(1, name);
+        for (long value : values) {
+            attribute.varint(8, value);
+        }
+        attribute.varint(20, ATTRIBUTE_INTS);
+        return new Attribute(attribute);
+    }
+
+    void write(File file) throws IOException {
+        Message opset = new Message();
+        opset.varint(2, OPSET);
+        Message model = new Message();
+        model.varint(1, IR_VERSION);
+        model.string(2, "CellNetTrainer");
+        model.message(7, graph);
+        model.message(8, opset);
+        try (OutputStream out = new FileOutputStream(file)) {
+            model.writeTo(out);
+        }
+    }
+
+    // ValueInfoProto de un tensor float: type.tensor_type con elem_type y shape
+    private static Message valueInfo(String name, int... dims) {
+        Message shape = new Message();
+        for (int dim : dims) {
+            Message dimension = new Message();
+            if (dim < 0) {
+                dimension.string(2, "N");
+            } else {
+                dimension.varint(1, dim);
+            }
+            shape.message(1, dimension);
+        }
+        Message tensor = new Message();
+        tensor.varint(1, FLOAT);
+        tensor.message(2, shape);
+        Message type = new Message();
+        type.message(1, tensor);
+        Message info = new Message();
+        info.string(1, name);
+        info.message(2, type);
+        return info;
+    }
+
+    /** Atributo ya codificado de un nodo. */
+    static final class Attribute {
+        private final Message message;
+
+        private Attribute(Message message) {
+            this.message = message;
+        }
+    }
+
+    // Mensaje protobuf en construcción: cada campo es su etiqueta (número y tipo) seguida del valor
+    private static final class Message {
+        private static final int VARINT = 0;
+        private static final int LENGTH_DELIMITED = 2;
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void varint(int field, long value) {
+            raw(field << 3 | VARINT);
+            raw(value);
+        }
+
+        void bytes(int field, byte[] value) {
+            raw(field << 3 | LENGTH_DELIMITED);
+            raw(value.length);
+            out.write(value, 0, value.length);
+        }
+
+        void string(int field, String value) {
+            bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void message(int field, Message value) {
+            bytes(field, value.out.toByteArray());
+        }
+
+        void writeTo(OutputStream stream) throws IOException {
+            out.writeTo(stream);
+        }
+
+        // Varint: 7 bits por byte, del menos significativo al más, con el bit alto como continuación
+        private void raw(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}